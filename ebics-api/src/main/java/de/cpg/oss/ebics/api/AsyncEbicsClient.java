@@ -0,0 +1,37 @@
+package de.cpg.oss.ebics.api;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of the {@link EbicsClient} operations that involve one or more round trips to the bank.
+ * <p>
+ * <p>Failures are reported by completing the returned future exceptionally, either with an
+ * {@link de.cpg.oss.ebics.api.exception.EbicsException} for errors reported by the bank or with a runtime exception.
+ */
+public interface AsyncEbicsClient {
+
+    EbicsSession loadOrCreateSession(EbicsSessionParameter sessionParameter);
+
+    CompletableFuture<EbicsSession> collectInformation(EbicsSession session);
+
+    CompletableFuture<Collection<VEUOrder>> getOrdersForVEU(EbicsSession session);
+
+    CompletableFuture<Collection<DetailedVEUOrder>> getDetailedOrdersForVEU(EbicsSession session);
+
+    CompletableFuture<DetailedVEUOrder> detailedVEUOrderFor(EbicsSession session, VEUOrder orderDetails);
+
+    CompletableFuture<Void> signDetailedOrder(EbicsSession session, DetailedVEUOrder detailedVEUOrder);
+
+    CompletableFuture<Void> cancelSignature(EbicsSession session, DetailedVEUOrder detailedVEUOrder);
+
+    CompletableFuture<FileTransfer> uploadFile(EbicsSession session, FileTransfer fileTransfer);
+
+    CompletableFuture<Void> fetchFile(String path,
+                                      EbicsSession session,
+                                      OrderType orderType,
+                                      boolean isTest,
+                                      LocalDate start,
+                                      LocalDate end);
+}
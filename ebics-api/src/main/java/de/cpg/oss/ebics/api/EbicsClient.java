@@ -5,6 +5,7 @@ import de.cpg.oss.ebics.api.exception.EbicsException;
 import java.io.File;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.Collection;
 
@@ -38,6 +39,10 @@ public interface EbicsClient {
                                              File fileLocation,
                                              OrderType orderType) throws EbicsException;
 
+    FileTransfer createFileUploadTransaction(EbicsSession session,
+                                             Path fileLocation,
+                                             OrderType orderType) throws EbicsException;
+
     FileTransfer uploadFile(EbicsSession session, FileTransfer fileTransfer) throws EbicsException;
 
     void fetchFile(String path,
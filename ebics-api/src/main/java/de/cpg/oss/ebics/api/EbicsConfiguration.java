@@ -6,6 +6,8 @@ import lombok.experimental.Wither;
 import java.nio.charset.Charset;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
 
 @Value
 @Wither
@@ -22,6 +24,39 @@ public class EbicsConfiguration {
     private final EbicsVersion version = EbicsVersion.H004;
     private final Charset veuDisplayFileCharset = Charset.forName("ISO-8859-1");
 
+    /**
+     * Whether the XML binding contexts of all EBICS message types should be created eagerly on client
+     * construction instead of lazily on first use.
+     */
+    private final boolean preloadXmlContexts;
+
+    /**
+     * The maximum number of segments of an upload transaction that are sent concurrently. The last segment is
+     * always sent after all others have been acknowledged. Only raise this if the bank accepts segments out of
+     * order.
+     */
+    private final int maxSegmentsInFlight;
+
+    /**
+     * Which outgoing messages are validated against the EBICS XML schema. Validation happens while the message is
+     * marshalled, so it does not need another parse of the serialized message.
+     */
+    private final ValidationPolicy validationPolicy;
+
+    /**
+     * The zlib compression level of uploaded order data, from {@link Deflater#BEST_SPEED} to
+     * {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}. Lower levels trade a larger upload
+     * for considerably less CPU time.
+     */
+    private final int compressionLevel;
+
+    /**
+     * The executor loading, signing and encrypting upload segments, decoding downloaded ones and saving the session
+     * after asynchronous operations. This work blocks on the persistence provider and the download sink, so it does
+     * not run on the common fork join pool. If omitted, a shared pool of daemon threads is used.
+     */
+    private final Executor executor;
+
     public EbicsConfiguration() {
         this(Locale.getDefault());
     }
@@ -32,11 +67,24 @@ public class EbicsConfiguration {
             public Locale getLocale() {
                 return locale;
             }
-        });
+        }, false, 1, ValidationPolicy.ALWAYS, Deflater.BEST_COMPRESSION, null);
     }
 
-    private EbicsConfiguration(final MessageProvider messageProvider) {
+    private EbicsConfiguration(final MessageProvider messageProvider,
+                               final boolean preloadXmlContexts,
+                               final int maxSegmentsInFlight,
+                               final ValidationPolicy validationPolicy,
+                               final int compressionLevel,
+                               final Executor executor) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+        }
         this.messageProvider = messageProvider;
+        this.preloadXmlContexts = preloadXmlContexts;
+        this.maxSegmentsInFlight = maxSegmentsInFlight;
+        this.validationPolicy = validationPolicy;
+        this.compressionLevel = compressionLevel;
+        this.executor = executor;
     }
 
     public Locale getLocale() {
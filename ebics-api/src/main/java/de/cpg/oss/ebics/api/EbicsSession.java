@@ -36,6 +36,9 @@ public class EbicsSession {
     @Getter
     @NonNull
     private final FileTransferManager fileTransferManager;
+    @Getter
+    @NonNull
+    private final EbicsTransport transport;
 
     public PublicKey getBankEncryptionKey() {
         return getBank().getEncryptionKey().getPublicKey();
@@ -0,0 +1,42 @@
+package de.cpg.oss.ebics.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends EBICS request messages to a bank and returns the bank's response.
+ */
+public interface EbicsTransport {
+
+    /**
+     * Sends the given XML request to the bank.
+     *
+     * @param bank    the receiving bank
+     * @param request the serialized XML request
+     * @return the response XML. The stream must be closed by the caller, which allows the transport
+     * to reuse the underlying connection.
+     * @throws IOException on connection failures or if the bank did not answer with HTTP status 200
+     */
+    InputStream send(EbicsBank bank, byte[] request) throws IOException;
+
+    /**
+     * Sends the given XML request to the bank without blocking the calling thread.
+     * <p>
+     * <p>The default implementation simply performs a blocking {@link #send(EbicsBank, byte[])}. Transports
+     * backed by a non-blocking HTTP client should override it.
+     *
+     * @param bank    the receiving bank
+     * @param request the serialized XML request
+     * @return a future for the response XML, completed exceptionally with an {@link IOException} on failures
+     */
+    default CompletableFuture<InputStream> sendAsync(final EbicsBank bank, final byte[] request) {
+        final CompletableFuture<InputStream> response = new CompletableFuture<>();
+        try {
+            response.complete(send(bank, request));
+        } catch (final IOException e) {
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
+}
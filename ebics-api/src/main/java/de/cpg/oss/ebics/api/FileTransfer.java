@@ -4,11 +4,11 @@ import lombok.*;
 import lombok.experimental.Wither;
 
 import java.text.MessageFormat;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Wither
 @ToString
@@ -31,7 +31,11 @@ public class FileTransfer implements Identifiable {
     private final byte[] digest;
     @Getter
     private final int segmentNumber;
-    private final Collection<String> segmentIds;
+    private final int numSegments;
+    /**
+     * Only set for transfers persisted before segment IDs were derived from the transfer ID, empty otherwise.
+     */
+    private final List<String> segmentIds;
 
     @Override
     public String getId() {
@@ -66,11 +70,33 @@ public class FileTransfer implements Identifiable {
     }
 
     public int getNumSegments() {
-        return segmentIds.size();
+        return segmentIds.isEmpty() ? numSegments : segmentIds.size();
+    }
+
+    /**
+     * @param segmentNumber the number of the segment, starting with 1
+     * @return the ID the segment with the given number is stored with
+     */
+    public UUID getSegmentId(final int segmentNumber) {
+        if (segmentNumber < 1 || segmentNumber > getNumSegments()) {
+            throw new IndexOutOfBoundsException(MessageFormat.format(
+                    "Segment {0} out of {1} segments of transfer {2}", segmentNumber, getNumSegments(), transferId));
+        }
+        return segmentIds.isEmpty()
+                ? segmentId(getTransferId(), segmentNumber)
+                : UUID.fromString(segmentIds.get(segmentNumber - 1));
     }
 
     public List<UUID> getSegmentIds() {
-        return segmentIds.stream().map(UUID::fromString).collect(Collectors.toList());
+        return IntStream.rangeClosed(1, getNumSegments()).mapToObj(this::getSegmentId).collect(Collectors.toList());
+    }
+
+    /**
+     * Derives the ID of a segment from the ID of its transfer, so that a transfer only needs to keep the number of
+     * its segments.
+     */
+    public static UUID segmentId(final UUID transferId, final int segmentNumber) {
+        return new UUID(transferId.getMostSignificantBits(), transferId.getLeastSignificantBits() + segmentNumber);
     }
 
     @Builder
@@ -80,6 +106,7 @@ public class FileTransfer implements Identifiable {
                          final byte[] nonce,
                          final byte[] digest,
                          final int segmentNumber,
+                         final int numSegments,
                          final List<UUID> segmentIds) {
         this(transferId.toString(),
                 transactionId,
@@ -87,11 +114,14 @@ public class FileTransfer implements Identifiable {
                 nonce,
                 digest,
                 segmentNumber,
-                segmentIds.stream().map(UUID::toString).collect(Collectors.toList()));
+                null == segmentIds || segmentIds.isEmpty() ? numSegments : segmentIds.size(),
+                null == segmentIds
+                        ? Collections.emptyList()
+                        : segmentIds.stream().map(UUID::toString).collect(Collectors.toList()));
     }
 
     // We all love JPA, don't we?
     private FileTransfer() {
-        this(UUID.randomUUID(), null, OrderType.INI, null, null, 0, Collections.emptyList());
+        this(UUID.randomUUID(), null, OrderType.INI, null, null, 0, 0, Collections.emptyList());
     }
 }
@@ -22,6 +22,11 @@ public interface FileTransferManager {
     boolean finalizeDownloadTransaction(FileTransfer fileTransfer,
                                         OutputStream outputStream);
 
+    /**
+     * Finalizes a download whose order data has already been written out while its segments were fetched.
+     */
+    boolean finalizeDownloadTransaction(FileTransfer fileTransfer);
+
     FileTransferSegment saveSegment(FileTransfer fileTransfer, byte[] orderData);
 
     FileTransferSegment loadSegment(FileTransfer fileTransfer);
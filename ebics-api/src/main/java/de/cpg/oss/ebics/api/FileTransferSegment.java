@@ -30,12 +30,6 @@ public class FileTransferSegment implements Identifiable {
         return new FileTransferSegment(segmentId.toString(), content);
     }
 
-    public static FileTransferSegment create(final byte[] content, final int contentLength) {
-        final byte[] contentCopy = new byte[contentLength];
-        System.arraycopy(content, 0, contentCopy, 0, contentLength);
-        return new FileTransferSegment(UUID.randomUUID().toString(), contentCopy);
-    }
-
     // We all love JPA, don't we?
     private FileTransferSegment() {
         this("", new byte[0]);
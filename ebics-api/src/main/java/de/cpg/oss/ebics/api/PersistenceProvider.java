@@ -6,9 +6,47 @@ public interface PersistenceProvider {
 
     <T extends Identifiable> T save(Class<T> clazz, T object) throws IOException;
 
+    /**
+     * Saves all objects of the same type the given producer passes on, while they are produced, so they never have
+     * to be held in memory together. Providers backed by a transactional store should save all of them in a single
+     * transaction, which is rolled back if the producer fails; the default implementation simply saves each object
+     * right away.
+     */
+    default <T extends Identifiable> void saveAll(final Class<T> clazz, final Producer<T> producer) throws IOException {
+        producer.produce(object -> save(clazz, object));
+    }
+
+    /**
+     * Saves all objects of a unit of work at once. Providers backed by a transactional store should save them in a
+     * single transaction; the default implementation simply saves them one after the other.
+     */
+    default void saveAll(final UnitOfWork unitOfWork) throws IOException {
+        unitOfWork.saveEach(this);
+    }
+
+    /**
+     * Writes out any saves a provider has deferred. Providers writing through, which is the default, have nothing
+     * to do.
+     */
+    default void flush() throws IOException {
+    }
+
     <T extends Identifiable> T load(Class<T> clazz, String id) throws IOException;
 
     boolean delete(Identifiable identifiable) throws IOException;
 
     <T extends Identifiable> boolean delete(Class<T> clazz, String id) throws IOException;
+
+    /**
+     * Produces objects for {@link #saveAll(Class, Producer)}, passing each one to the given sink once it is complete.
+     */
+    @FunctionalInterface
+    interface Producer<T extends Identifiable> {
+        void produce(Sink<T> sink) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Sink<T extends Identifiable> {
+        void save(T object) throws IOException;
+    }
 }
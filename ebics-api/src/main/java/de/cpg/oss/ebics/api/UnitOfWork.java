@@ -0,0 +1,84 @@
+package de.cpg.oss.ebics.api;
+
+import lombok.AllArgsConstructor;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Objects to be saved together with {@link PersistenceProvider#saveAll(UnitOfWork)}.
+ * <p>
+ * <p>Registering an object replaces an earlier registered object of the same type and ID, so only the latest state
+ * of each object is saved. Objects are saved in the order they were first registered. A unit of work is not
+ * thread-safe.
+ */
+public final class UnitOfWork {
+
+    private final Map<String, Entry<?>> entries = new LinkedHashMap<>();
+
+    public <T extends Identifiable> UnitOfWork save(final Class<T> clazz, final T object) {
+        entries.put(key(clazz, object.getId()), new Entry<>(clazz, object));
+        return this;
+    }
+
+    /**
+     * Registers all objects of another unit of work, replacing objects of the same type and ID registered here.
+     */
+    public UnitOfWork saveAll(final UnitOfWork unitOfWork) {
+        entries.putAll(unitOfWork.entries);
+        return this;
+    }
+
+    public <T extends Identifiable> Optional<T> find(final Class<T> clazz, final String id) {
+        return Optional.ofNullable(entries.get(key(clazz, id))).map(entry -> clazz.cast(entry.object));
+    }
+
+    /**
+     * @return <code>true</code> if an object of the given type and ID had been registered
+     */
+    public boolean remove(final Class<? extends Identifiable> clazz, final String id) {
+        return null != entries.remove(key(clazz, id));
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Calls the given action for every registered type and object, in the order they were first registered.
+     */
+    public void forEach(final BiConsumer<Class<? extends Identifiable>, Identifiable> action) {
+        entries.values().forEach(entry -> action.accept(entry.clazz, entry.object));
+    }
+
+    /**
+     * Saves the registered objects one after the other. This is what {@link PersistenceProvider#saveAll(UnitOfWork)}
+     * does by default; transactional providers call it within their transaction.
+     */
+    public void saveEach(final PersistenceProvider persistenceProvider) throws IOException {
+        for (final Entry<?> entry : entries.values()) {
+            entry.saveWith(persistenceProvider);
+        }
+    }
+
+    private static String key(final Class<? extends Identifiable> clazz, final String id) {
+        return clazz.getName().concat(":").concat(id);
+    }
+
+    @AllArgsConstructor
+    private static final class Entry<T extends Identifiable> {
+        private final Class<T> clazz;
+        private final T object;
+
+        private void saveWith(final PersistenceProvider persistenceProvider) throws IOException {
+            persistenceProvider.save(clazz, object);
+        }
+    }
+}
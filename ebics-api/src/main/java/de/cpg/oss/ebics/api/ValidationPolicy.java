@@ -0,0 +1,53 @@
+package de.cpg.oss.ebics.api;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which outgoing messages are validated against the EBICS XML schema before they are sent.
+ */
+public enum ValidationPolicy {
+
+    /**
+     * Every message is validated.
+     */
+    ALWAYS {
+        @Override
+        public boolean shouldValidate() {
+            return true;
+        }
+    },
+    /**
+     * One in {@value #SAMPLE_INTERVAL} messages, picked at random, is validated.
+     */
+    SAMPLED {
+        @Override
+        public boolean shouldValidate() {
+            return 0 == ThreadLocalRandom.current().nextInt(SAMPLE_INTERVAL);
+        }
+    },
+    /**
+     * No message is validated.
+     */
+    NEVER {
+        @Override
+        public boolean shouldValidate() {
+            return false;
+        }
+    },
+    /**
+     * Every message is validated if Java assertions are enabled, as they usually are when running tests, and none
+     * otherwise.
+     */
+    TEST_ONLY {
+        @Override
+        public boolean shouldValidate() {
+            return ASSERTIONS_ENABLED;
+        }
+    };
+
+    public static final int SAMPLE_INTERVAL = 100;
+
+    private static final boolean ASSERTIONS_ENABLED = ValidationPolicy.class.desiredAssertionStatus();
+
+    public abstract boolean shouldValidate();
+}
@@ -0,0 +1,25 @@
+package de.cpg.oss.ebics.api;
+
+import org.junit.Test;
+
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EbicsConfigurationTest {
+
+    @Test
+    public void testCompressionLevel() throws Exception {
+        final EbicsConfiguration configuration = new EbicsConfiguration();
+        assertThat(configuration.getCompressionLevel()).isEqualTo(Deflater.BEST_COMPRESSION);
+
+        assertThat(configuration.withCompressionLevel(Deflater.DEFAULT_COMPRESSION).getCompressionLevel())
+                .isEqualTo(Deflater.DEFAULT_COMPRESSION);
+        assertThat(configuration.withCompressionLevel(Deflater.NO_COMPRESSION).getCompressionLevel())
+                .isEqualTo(Deflater.NO_COMPRESSION);
+
+        assertThatThrownBy(() -> configuration.withCompressionLevel(-2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> configuration.withCompressionLevel(10)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,53 @@
+package de.cpg.oss.ebics.api;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileTransferTest {
+
+    @Test
+    public void testDerivedSegmentIds() throws Exception {
+        final UUID transferId = UUID.randomUUID();
+        final FileTransfer fileTransfer = FileTransfer.builder()
+                .transferId(transferId)
+                .orderType(OrderType.CCT)
+                .numSegments(3)
+                .build();
+
+        assertThat(fileTransfer.getNumSegments()).isEqualTo(3);
+        assertThat(fileTransfer.getSegmentId(2)).isEqualTo(FileTransfer.segmentId(transferId, 2));
+        assertThat(fileTransfer.getSegmentIds())
+                .containsExactly(fileTransfer.getSegmentId(1), fileTransfer.getSegmentId(2), fileTransfer.getSegmentId(3))
+                .doesNotHaveDuplicates()
+                .doesNotContain(transferId);
+    }
+
+    @Test
+    public void testStoredSegmentIds() throws Exception {
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        final FileTransfer fileTransfer = FileTransfer.builder()
+                .transferId(UUID.randomUUID())
+                .orderType(OrderType.CCT)
+                .segmentIds(Arrays.asList(first, second))
+                .build();
+
+        assertThat(fileTransfer.getNumSegments()).isEqualTo(2);
+        assertThat(fileTransfer.getSegmentId(2)).isEqualTo(second);
+        assertThat(fileTransfer.getSegmentIds()).containsExactly(first, second);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSegmentIdOutOfRange() throws Exception {
+        FileTransfer.builder()
+                .transferId(UUID.randomUUID())
+                .orderType(OrderType.CCT)
+                .numSegments(1)
+                .build()
+                .getSegmentId(2);
+    }
+}
@@ -0,0 +1,54 @@
+package de.cpg.oss.ebics.benchmarks;
+
+import de.cpg.oss.ebics.TestUtil;
+import de.cpg.oss.ebics.api.EbicsSession;
+import de.cpg.oss.ebics.api.FileTransferManager;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Security;
+import java.text.MessageFormat;
+
+abstract class BenchmarkUtil {
+
+    static final int SEGMENT_SIZE = FileTransferManager.BLOCK_SIZE;
+
+    static EbicsSession session() throws Exception {
+        org.apache.xml.security.Init.init();
+        Security.addProvider(new BouncyCastleProvider());
+        return TestUtil.createEbicsSession();
+    }
+
+    /**
+     * Creates order data resembling a statement file, so that compression ratios are realistic.
+     */
+    static byte[] orderData(final int size) {
+        final StringBuilder orderData = new StringBuilder(size + 128);
+        for (int line = 0; orderData.length() < size; line++) {
+            orderData.append(MessageFormat.format(
+                    ":61:1610{0,number,00}C{1,number,0.00}NTRFNONREF//{2,number,000000000}\r\n",
+                    line % 28 + 1, line * 13.37d, line));
+        }
+        orderData.setLength(size);
+        return orderData.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Creates order data resembling a camt.053 statement or pain.001 credit transfer, with one entry per booking.
+     */
+    static byte[] xmlOrderData(final int size) {
+        final StringBuilder orderData = new StringBuilder(size + 512);
+        orderData.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Document><BkToCstmrStmt><Stmt>\n");
+        for (int entry = 0; orderData.length() < size; entry++) {
+            orderData.append(MessageFormat.format(
+                    "<Ntry><NtryRef>{0,number,000000000}</NtryRef><Amt Ccy=\"EUR\">{1,number,0.00}</Amt>"
+                            + "<CdtDbtInd>{2}</CdtDbtInd><BookgDt><Dt>2016-10-{3,number,00}</Dt></BookgDt>"
+                            + "<NtryDtls><TxDtls><RmtInf><Ustrd>Invoice {4,number,0000000} customer {5}"
+                            + "</Ustrd></RmtInf></TxDtls></NtryDtls></Ntry>\n",
+                    entry, entry * 13.37d, entry % 3 == 0 ? "DBIT" : "CRDT", entry % 28 + 1,
+                    entry * 7919 % 10_000_000, Integer.toHexString(entry * 31 % 4096).toUpperCase()));
+        }
+        orderData.setLength(size);
+        return orderData.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,39 @@
+package de.cpg.oss.ebics.benchmarks;
+
+import de.cpg.oss.ebics.utils.IOUtil;
+import de.cpg.oss.ebics.utils.ZipUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compression of XML order data at different zlib levels, for a small and a large credit transfer or statement
+ * file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"1", "6", "9"})
+    private int level;
+
+    @Param({"65536", "8388608"})
+    private int size;
+
+    private byte[] orderData;
+
+    @Setup
+    public void setup() {
+        orderData = BenchmarkUtil.xmlOrderData(size);
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return IOUtil.read(ZipUtil.compress(new ByteArrayInputStream(orderData), level));
+    }
+}
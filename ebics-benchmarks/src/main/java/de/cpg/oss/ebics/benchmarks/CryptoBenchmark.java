@@ -0,0 +1,96 @@
+package de.cpg.oss.ebics.benchmarks;
+
+import de.cpg.oss.ebics.api.EbicsSession;
+import de.cpg.oss.ebics.utils.CryptoUtil;
+import de.cpg.oss.ebics.utils.IOUtil;
+import de.cpg.oss.ebics.utils.KeyUtil;
+import de.cpg.oss.ebics.utils.ZipUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encryption and compression of a single segment, and the per-request RSA operations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CryptoBenchmark {
+
+    private byte[] nonce;
+    private byte[] segment;
+    private byte[] encryptedSegment;
+    private byte[] compressedSegment;
+    private PublicKey publicKey;
+    private EbicsSession session;
+    private byte[] hash;
+    private byte[] encryptedNonce;
+
+    @Setup
+    public void setup() throws Exception {
+        nonce = CryptoUtil.generateNonce();
+        segment = BenchmarkUtil.orderData(BenchmarkUtil.SEGMENT_SIZE);
+        encryptedSegment = IOUtil.read(CryptoUtil.encryptAES(new ByteArrayInputStream(segment), nonce));
+        compressedSegment = IOUtil.read(ZipUtil.compress(new ByteArrayInputStream(segment)));
+        publicKey = KeyUtil.createRsaKeyPair(KeyUtil.EBICS_KEY_SIZE).getPublic();
+        session = BenchmarkUtil.session();
+        hash = MessageDigest.getInstance(CryptoUtil.EBICS_DIGEST_ALGORITHM).digest(segment);
+        encryptedNonce = CryptoUtil.encryptRSA(nonce, session.getUser().getEncryptionKey().getPublicKey());
+    }
+
+    @Benchmark
+    public byte[] encryptAES() {
+        return IOUtil.read(CryptoUtil.encryptAES(new ByteArrayInputStream(segment), nonce));
+    }
+
+    @Benchmark
+    public byte[] decryptAES() {
+        return IOUtil.read(CryptoUtil.decryptAES(new ByteArrayInputStream(encryptedSegment), nonce));
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return IOUtil.read(ZipUtil.compress(new ByteArrayInputStream(segment)));
+    }
+
+    @Benchmark
+    public byte[] uncompress() {
+        return IOUtil.read(ZipUtil.uncompress(new ByteArrayInputStream(compressedSegment)));
+    }
+
+    @Benchmark
+    public byte[] keyDigest() {
+        return KeyUtil.getKeyDigest(publicKey);
+    }
+
+    @Benchmark
+    public byte[] signMessage() throws Exception {
+        return CryptoUtil.signMessage(new ByteArrayInputStream(segment), session.getUser().getSignatureKey());
+    }
+
+    @Benchmark
+    public byte[] generateNonce() {
+        return CryptoUtil.generateNonce();
+    }
+
+    @Benchmark
+    public byte[] encryptRSA() {
+        return CryptoUtil.encryptRSA(nonce, session.getUser().getEncryptionKey().getPublicKey());
+    }
+
+    @Benchmark
+    public byte[] decryptRSA() {
+        return CryptoUtil.decryptRSA(encryptedNonce, session.getUser().getEncryptionKey().getPrivateKey());
+    }
+
+    @Benchmark
+    public byte[] signHash() throws Exception {
+        return CryptoUtil.signHash(hash, session.getUser().getSignatureKey());
+    }
+}
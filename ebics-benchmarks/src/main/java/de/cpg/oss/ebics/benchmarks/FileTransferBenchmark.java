@@ -0,0 +1,43 @@
+package de.cpg.oss.ebics.benchmarks;
+
+import de.cpg.oss.ebics.api.FileTransfer;
+import de.cpg.oss.ebics.api.FileTransferManager;
+import de.cpg.oss.ebics.api.OrderType;
+import de.cpg.oss.ebics.session.DefaultFileTransferManager;
+import de.cpg.oss.ebics.session.InMemoryPersistenceProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preparation of an upload: digest, compression, encryption and segmentation of the order data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileTransferBenchmark {
+
+    @Param({"1", "8"})
+    private int segments;
+
+    private FileTransferManager fileTransferManager;
+    private byte[] orderData;
+
+    @Setup
+    public void setup() {
+        fileTransferManager = new DefaultFileTransferManager(InMemoryPersistenceProvider.INSTANCE);
+        orderData = BenchmarkUtil.orderData(segments * BenchmarkUtil.SEGMENT_SIZE);
+    }
+
+    @Benchmark
+    public FileTransfer createUploadTransaction() {
+        final FileTransfer fileTransfer = fileTransferManager.createUploadTransaction(OrderType.FUL,
+                new ByteArrayInputStream(orderData));
+        fileTransferManager.finalizeUploadTransaction(fileTransfer);
+        return fileTransfer;
+    }
+}
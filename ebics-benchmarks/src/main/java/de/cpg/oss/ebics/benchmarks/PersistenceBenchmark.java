@@ -0,0 +1,62 @@
+package de.cpg.oss.ebics.benchmarks;
+
+import de.cpg.oss.ebics.api.FileTransferSegment;
+import de.cpg.oss.ebics.api.PersistenceProvider;
+import de.cpg.oss.ebics.session.FsyncPolicy;
+import de.cpg.oss.ebics.session.JsonPersistenceProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading a full 1 MiB upload segment as JSON, with each fsync policy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+
+    @Param({"NONE", "FILE", "FILE_AND_DIRECTORY"})
+    private FsyncPolicy fsyncPolicy;
+
+    private File storageDirectory;
+    private PersistenceProvider persistenceProvider;
+    private FileTransferSegment segment;
+
+    @Setup
+    public void setup() throws IOException {
+        storageDirectory = Files.createTempDirectory("ebics-benchmark").toFile();
+        persistenceProvider = new JsonPersistenceProvider(storageDirectory, fsyncPolicy);
+
+        final byte[] content = new byte[SEGMENT_SIZE];
+        new Random(42).nextBytes(content);
+        segment = FileTransferSegment.valueOf(UUID.randomUUID(), content);
+        persistenceProvider.save(FileTransferSegment.class, segment);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        persistenceProvider.delete(segment);
+        Files.deleteIfExists(storageDirectory.toPath());
+    }
+
+    @Benchmark
+    public FileTransferSegment save() throws IOException {
+        return persistenceProvider.save(FileTransferSegment.class, segment);
+    }
+
+    @Benchmark
+    public FileTransferSegment load() throws IOException {
+        return persistenceProvider.load(FileTransferSegment.class, segment.getId());
+    }
+}
@@ -0,0 +1,75 @@
+package de.cpg.oss.ebics.benchmarks;
+
+import de.cpg.oss.ebics.api.EbicsSession;
+import de.cpg.oss.ebics.api.OrderType;
+import de.cpg.oss.ebics.utils.XmlUtil;
+import de.cpg.oss.ebics.xml.EbicsRequestElement;
+import de.cpg.oss.ebics.xml.EbicsResponseElement;
+import de.cpg.oss.ebics.xml.UTransferRequestElement;
+import org.ebics.h004.EbicsResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating, digesting and signing requests and parsing responses, i.e. the work done for every message exchanged
+ * with the bank.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class XmlBenchmark {
+
+    private EbicsSession session;
+    private byte[] segment;
+    private byte[] transactionId;
+    private byte[] response;
+
+    @Setup
+    public void setup() throws Exception {
+        session = BenchmarkUtil.session();
+        segment = BenchmarkUtil.orderData(BenchmarkUtil.SEGMENT_SIZE);
+        transactionId = new byte[16];
+        response = ("<ebicsResponse xmlns=\"urn:org:ebics:H004\" Version=\"H004\" Revision=\"1\">"
+                + "<header authenticate=\"true\">"
+                + "<static><TransactionID>0123456789ABCDEF0123456789ABCDEF</TransactionID></static>"
+                + "<mutable><TransactionPhase>Transfer</TransactionPhase>"
+                + "<SegmentNumber lastSegment=\"false\">2</SegmentNumber>"
+                + "<ReturnCode>000000</ReturnCode><ReportText>[EBICS_OK] OK</ReportText></mutable>"
+                + "</header>"
+                + "<body><DataTransfer><OrderData>" + Base64.getEncoder().encodeToString(segment) + "</OrderData>"
+                + "</DataTransfer><ReturnCode authenticate=\"true\">000000</ReturnCode></body>"
+                + "</ebicsResponse>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] createSignedRequest() {
+        return EbicsRequestElement.createSigned(session, OrderType.HPD).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] createSignedSegmentRequest() {
+        return UTransferRequestElement.builder()
+                .segmentNumber(2)
+                .lastSegment(false)
+                .transactionId(transactionId)
+                .content(segment)
+                .build().create(session).toByteArray();
+    }
+
+    @Benchmark
+    public EbicsResponse parseSegmentResponse() {
+        return XmlUtil.parse(EbicsResponse.class, new ByteArrayInputStream(response));
+    }
+
+    @Benchmark
+    public byte[] readSegmentResponse() {
+        return EbicsResponseElement.parse(new ByteArrayInputStream(response)).getOrderData();
+    }
+}
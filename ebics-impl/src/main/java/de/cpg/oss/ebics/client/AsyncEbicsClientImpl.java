@@ -0,0 +1,136 @@
+package de.cpg.oss.ebics.client;
+
+import de.cpg.oss.ebics.api.*;
+import de.cpg.oss.ebics.session.AsyncHttpTransport;
+import de.cpg.oss.ebics.utils.ExecutorUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * The non-blocking ebics client. All operations are composed of chained request/response futures, so no thread
+ * waits for the bank while a conversation is in progress, given the transport supports asynchronous sends.
+ * <p>
+ * <p>Closing the client shuts down the transport if the client created it; a transport passed in is owned by the
+ * caller and left open.
+ */
+public class AsyncEbicsClientImpl implements AsyncEbicsClient, Closeable {
+
+    private final EbicsClient client;
+    private final EbicsTransport transport;
+    private final boolean ownsTransport;
+    private final Executor executor;
+
+    /**
+     * Constructs a new non-blocking ebics client using an {@link AsyncHttpTransport} with default settings, whose
+     * I/O reactor is shut down when the client is closed
+     *
+     * @param configuration the application configuration
+     */
+    public AsyncEbicsClientImpl(final EbicsConfiguration configuration) {
+        this(configuration, new AsyncHttpTransport(), true);
+    }
+
+    /**
+     * Constructs a new non-blocking ebics client
+     *
+     * @param configuration the application configuration
+     * @param transport     the transport to send requests to the bank with, used for every session passed in and
+     *                      left open when the client is closed
+     */
+    public AsyncEbicsClientImpl(final EbicsConfiguration configuration, final EbicsTransport transport) {
+        this(configuration, transport, false);
+    }
+
+    private AsyncEbicsClientImpl(final EbicsConfiguration configuration,
+                                 final EbicsTransport transport,
+                                 final boolean ownsTransport) {
+        this.client = new EbicsClientImpl(configuration, transport);
+        this.transport = transport;
+        this.ownsTransport = ownsTransport;
+        this.executor = ExecutorUtil.executorFor(configuration);
+    }
+
+    /**
+     * Shuts down the transport if this client created it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsTransport && transport instanceof Closeable) {
+            ((Closeable) transport).close();
+        }
+    }
+
+    @Override
+    public EbicsSession loadOrCreateSession(final EbicsSessionParameter sessionParameter) {
+        return client.loadOrCreateSession(sessionParameter);
+    }
+
+    @Override
+    public CompletableFuture<EbicsSession> collectInformation(final EbicsSession session) {
+        return withTransport(session, s -> KeyManagement.bankWithPublicKeysAsync(s)
+                .thenCompose(bankWithKeys -> KeyManagement.collectInformationAsync(s.withBank(bankWithKeys)))
+                .thenApplyAsync(client::save, executor));
+    }
+
+    @Override
+    public CompletableFuture<Collection<VEUOrder>> getOrdersForVEU(final EbicsSession session) {
+        return withTransport(session, DistributedElectronicSignature::getOrdersForVEUAsync);
+    }
+
+    @Override
+    public CompletableFuture<Collection<DetailedVEUOrder>> getDetailedOrdersForVEU(final EbicsSession session) {
+        return withTransport(session, DistributedElectronicSignature::getDetailedOrdersForVEUAsync);
+    }
+
+    @Override
+    public CompletableFuture<DetailedVEUOrder> detailedVEUOrderFor(final EbicsSession session,
+                                                                   final VEUOrder orderDetails) {
+        return withTransport(session, s -> DistributedElectronicSignature.getOrderDetailsAsync(s, orderDetails));
+    }
+
+    @Override
+    public CompletableFuture<Void> signDetailedOrder(final EbicsSession session,
+                                                     final DetailedVEUOrder detailedVEUOrder) {
+        return withTransport(session, s -> DistributedElectronicSignature.signDetailedOrderAsync(s, detailedVEUOrder));
+    }
+
+    @Override
+    public CompletableFuture<Void> cancelSignature(final EbicsSession session,
+                                                   final DetailedVEUOrder detailedVEUOrder) {
+        return withTransport(session, s -> DistributedElectronicSignature.cancelSignatureAsync(s, detailedVEUOrder));
+    }
+
+    @Override
+    public CompletableFuture<FileTransfer> uploadFile(final EbicsSession session, final FileTransfer fileTransfer) {
+        return withTransport(session, s -> FileTransaction.uploadFileAsync(s, fileTransfer));
+    }
+
+    @Override
+    public CompletableFuture<Void> fetchFile(final String path,
+                                             final EbicsSession session,
+                                             final OrderType orderType,
+                                             final boolean isTest,
+                                             final LocalDate start,
+                                             final LocalDate end) {
+        return withTransport(session, s -> FileTransaction.createFileDownloadTransactionAsync(
+                s, orderType, isTest, start, end)
+                .thenCompose(transaction -> FileTransaction.downloadFileAsync(s, transaction, new File(path)))
+                .thenApply(transaction -> null));
+    }
+
+    /**
+     * Runs the given operation with this client's transport. Exceptions raised while preparing the first request
+     * complete the returned future instead of being thrown to the caller.
+     */
+    private <T> CompletableFuture<T> withTransport(final EbicsSession session,
+                                                   final Function<EbicsSession, CompletableFuture<T>> operation) {
+        return CompletableFuture.completedFuture(session.withTransport(transport)).thenCompose(operation);
+    }
+}
@@ -6,12 +6,14 @@ import de.cpg.oss.ebics.utils.*;
 import de.cpg.oss.ebics.xml.EbicsResponseElement;
 import de.cpg.oss.ebics.xml.ResponseElement;
 import de.cpg.oss.ebics.xml.ResponseOrderDataElement;
-import org.apache.http.HttpEntity;
+import de.cpg.oss.ebics.xml.SignedRequest;
 import org.ebics.h004.EbicsRequest;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 abstract class ClientUtil {
 
@@ -23,18 +25,24 @@ abstract class ClientUtil {
         T parse(InputStream orderDataXml);
     }
 
-    static EbicsResponseElement requestExchange(final EbicsSession session, final EbicsRequest request) throws EbicsException {
-        return requestExchange(session, request, EbicsResponseElement::parse);
+    static EbicsResponseElement requestExchange(final EbicsSession session,
+                                                final SignedRequest<EbicsRequest> request) throws EbicsException {
+        return await(requestExchangeAsync(session, request));
     }
 
     static <T, O extends ResponseElement<T>> O requestExchange(
             final EbicsSession session,
-            final EbicsRequest request,
+            final SignedRequest<EbicsRequest> request,
             final ResponseElementParser<O> responseElementParser) throws EbicsException {
-        return requestExchange(session, EbicsRequest.class, request, responseElementParser,
-                Optional.ofNullable(request.getHeader().getStatic().getOrderDetails())
-                        .map(orderDetails -> orderDetails.getOrderType().getValue())
-                        .orElse("Ebics"));
+        return await(requestExchangeAsync(session, request, responseElementParser));
+    }
+
+    static <I, T, O extends ResponseElement<T>> O requestExchange(
+            final EbicsSession session,
+            final SignedRequest<I> request,
+            final ResponseElementParser<O> responseElementParser,
+            final String baseElementName) throws EbicsException {
+        return await(requestExchangeAsync(session, request, responseElementParser, baseElementName));
     }
 
     static <I, T, O extends ResponseElement<T>> O requestExchange(
@@ -42,23 +50,88 @@ abstract class ClientUtil {
             final Class<I> requestClass, final I request,
             final ResponseElementParser<O> responseElementParser,
             final String baseElementName) throws EbicsException {
-        final byte[] xml = IOUtil.read(XmlUtil.prettyPrint(requestClass, request));
-        session.getXmlMessageTracer().trace(IOUtil.wrap(xml), baseElementName.concat("Request"));
+        return await(requestExchangeAsync(session, requestClass, request, responseElementParser, baseElementName));
+    }
 
-        final HttpEntity httpEntity = HttpUtil.sendAndReceive(session.getBank(), IOUtil.wrap(XmlUtil.validate(xml)));
-        final O response;
+    static CompletableFuture<EbicsResponseElement> requestExchangeAsync(
+            final EbicsSession session,
+            final SignedRequest<EbicsRequest> request) {
+        return requestExchangeAsync(session, request, EbicsResponseElement::parse);
+    }
+
+    static <T, O extends ResponseElement<T>> CompletableFuture<O> requestExchangeAsync(
+            final EbicsSession session,
+            final SignedRequest<EbicsRequest> request,
+            final ResponseElementParser<O> responseElementParser) {
+        return requestExchangeAsync(session, request, responseElementParser,
+                Optional.ofNullable(request.getRequest().getHeader().getStatic().getOrderDetails())
+                        .map(orderDetails -> orderDetails.getOrderType().getValue())
+                        .orElse("Ebics"));
+    }
+
+    static <I, T, O extends ResponseElement<T>> CompletableFuture<O> requestExchangeAsync(
+            final EbicsSession session,
+            final SignedRequest<I> request,
+            final ResponseElementParser<O> responseElementParser,
+            final String baseElementName) {
+        return requestExchangeAsync(session, request.toByteArray(), responseElementParser, baseElementName);
+    }
+
+    static <I, T, O extends ResponseElement<T>> CompletableFuture<O> requestExchangeAsync(
+            final EbicsSession session,
+            final Class<I> requestClass, final I request,
+            final ResponseElementParser<O> responseElementParser,
+            final String baseElementName) {
+        return requestExchangeAsync(session, IOUtil.read(XmlUtil.compact(requestClass, request,
+                session.getConfiguration().getValidationPolicy().shouldValidate())),
+                responseElementParser, baseElementName);
+    }
+
+    /**
+     * Waits for the given exchange to complete, rethrowing EBICS and runtime exceptions as they were raised.
+     */
+    static <T> T await(final CompletableFuture<T> future) throws EbicsException {
         try {
-            response = responseElementParser.parse(httpEntity.getContent());
-        } catch (final IOException e) {
-            throw new RuntimeException(e);
+            return future.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof EbicsException) {
+                throw (EbicsException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
         }
+    }
 
-        session.getXmlMessageTracer().trace(
-                response.getResponseClass(),
-                response.getResponse(),
-                baseElementName.concat("Response"));
-        response.report(session.getMessageProvider());
-        return response;
+    private static <T, O extends ResponseElement<T>> CompletableFuture<O> requestExchangeAsync(
+            final EbicsSession session,
+            final byte[] xml,
+            final ResponseElementParser<O> responseElementParser,
+            final String baseElementName) {
+        session.getXmlMessageTracer().trace(IOUtil.wrap(xml), baseElementName.concat("Request"));
+
+        return session.getTransport().sendAsync(session.getBank(), xml).thenApply(responseXml -> {
+            final O response;
+            try (final InputStream responseStream = responseXml) {
+                response = responseElementParser.parse(responseStream);
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            session.getXmlMessageTracer().trace(
+                    response.getResponseClass(),
+                    response.getResponse(),
+                    baseElementName.concat("Response"));
+            try {
+                response.report(session.getMessageProvider());
+            } catch (final EbicsException e) {
+                throw new CompletionException(e);
+            }
+            return response;
+        });
     }
 
     static <T, O extends ResponseOrderDataElement<T>, I extends ResponseElement> O orderDataElement(
@@ -9,67 +9,95 @@ import de.cpg.oss.ebics.xml.*;
 import org.ebics.h004.EbicsRequest;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 abstract class DistributedElectronicSignature {
 
     static Collection<VEUOrder> getOrdersForVEU(final EbicsSession session) throws EbicsException {
-        final EbicsRequest ebicsRequest = new VEUOrderDetailsRequestElement().create(session);
+        return ClientUtil.await(getOrdersForVEUAsync(session));
+    }
+
+    static CompletableFuture<Collection<VEUOrder>> getOrdersForVEUAsync(final EbicsSession session) {
+        final SignedRequest<EbicsRequest> ebicsRequest = new VEUOrderDetailsRequestElement().create(session);
 
-        final EbicsResponseElement responseElement = ClientUtil.requestExchange(session, ebicsRequest);
-        final VEUResponseOrderDataElement.Standard orderDataElement = ClientUtil.orderDataElement(session,
-                responseElement, VEUResponseOrderDataElement.Standard::parse,
-                EbicsRequestElement.orderType(ebicsRequest));
+        return ClientUtil.requestExchangeAsync(session, ebicsRequest).thenApply(responseElement -> {
+            final VEUResponseOrderDataElement.Standard orderDataElement = ClientUtil.orderDataElement(session,
+                    responseElement, VEUResponseOrderDataElement.Standard::parse,
+                    EbicsRequestElement.orderType(ebicsRequest.getRequest()));
 
-        return orderDataElement.getVEUOrders();
+            return orderDataElement.getVEUOrders();
+        });
     }
 
     static Collection<DetailedVEUOrder> getDetailedOrdersForVEU(final EbicsSession session) throws EbicsException {
-        final EbicsRequest ebicsRequest = new VEUOrderDetailsRequestElement().withDetails(true).create(session);
+        return ClientUtil.await(getDetailedOrdersForVEUAsync(session));
+    }
 
-        final EbicsResponseElement responseElement = ClientUtil.requestExchange(session, ebicsRequest);
-        final VEUResponseOrderDataElement.Detailed orderDataElement = ClientUtil.orderDataElement(session,
-                responseElement, VEUResponseOrderDataElement.Detailed::parse,
-                EbicsRequestElement.orderType(ebicsRequest));
+    static CompletableFuture<Collection<DetailedVEUOrder>> getDetailedOrdersForVEUAsync(final EbicsSession session) {
+        final SignedRequest<EbicsRequest> ebicsRequest = new VEUOrderDetailsRequestElement().withDetails(true)
+                .create(session);
 
-        return orderDataElement.getDetailedVEUOrders();
+        return ClientUtil.requestExchangeAsync(session, ebicsRequest).thenApply(responseElement -> {
+            final VEUResponseOrderDataElement.Detailed orderDataElement = ClientUtil.orderDataElement(session,
+                    responseElement, VEUResponseOrderDataElement.Detailed::parse,
+                    EbicsRequestElement.orderType(ebicsRequest.getRequest()));
+
+            return orderDataElement.getDetailedVEUOrders();
+        });
     }
 
     static DetailedVEUOrder getOrderDetails(final EbicsSession session, final VEUOrder veuOrder)
             throws EbicsException {
+        return ClientUtil.await(getOrderDetailsAsync(session, veuOrder));
+    }
+
+    static CompletableFuture<DetailedVEUOrder> getOrderDetailsAsync(final EbicsSession session,
+                                                                    final VEUOrder veuOrder) {
         final HVxRequestElement.HVD hvdRequestElement = HVxRequestElement.HVD.builder()
                 .orderType(veuOrder.getType().getOrElseGet(OrderType::name))
                 .partner(session.getPartner())
                 .orderId(veuOrder.getId())
                 .build();
-        final EbicsRequest hvdRequest = hvdRequestElement.create(session);
+        final SignedRequest<EbicsRequest> hvdRequest = hvdRequestElement.create(session);
 
-        final EbicsResponseElement hvdResponse = ClientUtil.requestExchange(session, hvdRequest);
-        final HVDResponseOrderDataElement hvdResponseOrderData = ClientUtil.orderDataElement(session, hvdResponse,
-                HVDResponseOrderDataElement::parse, EbicsRequestElement.orderType(hvdRequest));
+        return ClientUtil.requestExchangeAsync(session, hvdRequest).thenApply(hvdResponse -> {
+            final HVDResponseOrderDataElement hvdResponseOrderData = ClientUtil.orderDataElement(session, hvdResponse,
+                    HVDResponseOrderDataElement::parse, EbicsRequestElement.orderType(hvdRequest.getRequest()));
 
-        return hvdResponseOrderData.detailedVEUOrder(session.getConfiguration(), veuOrder);
+            return hvdResponseOrderData.detailedVEUOrder(session.getConfiguration(), veuOrder);
+        });
     }
 
     static void signDetailedOrder(final EbicsSession session, final DetailedVEUOrder detailedVEUOrder)
             throws EbicsException {
-        final EbicsRequest ebicsRequest = HVxRequestElement.HVE.builder()
+        ClientUtil.await(signDetailedOrderAsync(session, detailedVEUOrder));
+    }
+
+    static CompletableFuture<Void> signDetailedOrderAsync(final EbicsSession session,
+                                                          final DetailedVEUOrder detailedVEUOrder) {
+        final SignedRequest<EbicsRequest> ebicsRequest = HVxRequestElement.HVE.builder()
                 .dataDigest(detailedVEUOrder.getDataDigest())
                 .orderId(detailedVEUOrder.getOrder().getId())
                 .orderType(detailedVEUOrder.getOrder().getType().getOrElseGet(OrderType::name))
                 .partner(session.getPartner())
                 .build().create(session);
 
-        ClientUtil.requestExchange(session, ebicsRequest);
+        return ClientUtil.requestExchangeAsync(session, ebicsRequest).thenApply(responseElement -> null);
     }
 
     static void cancelSignature(final EbicsSession session, final DetailedVEUOrder detailedVEUOrder) throws EbicsException {
-        final EbicsRequest ebicsRequest = HVxRequestElement.HVS.builder()
+        ClientUtil.await(cancelSignatureAsync(session, detailedVEUOrder));
+    }
+
+    static CompletableFuture<Void> cancelSignatureAsync(final EbicsSession session,
+                                                        final DetailedVEUOrder detailedVEUOrder) {
+        final SignedRequest<EbicsRequest> ebicsRequest = HVxRequestElement.HVS.builder()
                 .dataDigest(detailedVEUOrder.getDataDigest())
                 .orderId(detailedVEUOrder.getOrder().getId())
                 .orderType(detailedVEUOrder.getOrder().getType().getOrElseGet(OrderType::name))
                 .partner(session.getPartner())
                 .build().create(session);
 
-        ClientUtil.requestExchange(session, ebicsRequest);
+        return ClientUtil.requestExchangeAsync(session, ebicsRequest).thenApply(responseElement -> null);
     }
 }
@@ -0,0 +1,37 @@
+package de.cpg.oss.ebics.client;
+
+import de.cpg.oss.ebics.api.EbicsSession;
+import de.cpg.oss.ebics.api.OrderType;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+/**
+ * A single order to be fetched by the {@link DownloadScheduler}.
+ */
+@Value
+@Builder
+public class DownloadJob {
+
+    @NonNull
+    private final EbicsSession session;
+    @NonNull
+    private final OrderType orderType;
+    private final boolean test;
+    private final LocalDate start;
+    private final LocalDate end;
+
+    /**
+     * Opens the stream the order data is written to. It is called when the first segment has been decoded, and the
+     * order data is written while the remaining segments are downloaded. The stream is closed once the download
+     * has finished or failed. Only a download completing without error leaves complete order data in the stream;
+     * a failed download leaves it incomplete, and resuming the transfer calls the supplier again and writes the
+     * complete order data from the start.
+     */
+    @NonNull
+    private final Supplier<OutputStream> sink;
+}
@@ -0,0 +1,42 @@
+package de.cpg.oss.ebics.client;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregate outcome of a batch run by the {@link DownloadScheduler}.
+ */
+@Value
+public class DownloadReport {
+
+    private final List<DownloadResult> results;
+    private final Duration elapsed;
+
+    public List<DownloadResult> getSucceeded() {
+        return results.stream().filter(DownloadResult::isSuccessful).collect(Collectors.toList());
+    }
+
+    public List<DownloadResult> getFailed() {
+        return results.stream().filter(result -> !result.isSuccessful()).collect(Collectors.toList());
+    }
+
+    public long getTotalBytes() {
+        return results.stream().mapToLong(DownloadResult::getBytes).sum();
+    }
+
+    public double getBytesPerSecond() {
+        return perSecond(getTotalBytes());
+    }
+
+    public double getJobsPerSecond() {
+        return perSecond(results.size());
+    }
+
+    private double perSecond(final long amount) {
+        final long millis = elapsed.toMillis();
+        return 0 == millis ? amount : amount * 1000d / millis;
+    }
+}
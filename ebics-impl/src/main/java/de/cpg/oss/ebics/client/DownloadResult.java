@@ -0,0 +1,26 @@
+package de.cpg.oss.ebics.client;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * The outcome of a single {@link DownloadJob}.
+ */
+@Value
+public class DownloadResult {
+
+    private final DownloadJob job;
+    private final long bytes;
+    private final Duration elapsed;
+    private final Throwable error;
+
+    public boolean isSuccessful() {
+        return null == error;
+    }
+
+    public Optional<Throwable> getError() {
+        return Optional.ofNullable(error);
+    }
+}
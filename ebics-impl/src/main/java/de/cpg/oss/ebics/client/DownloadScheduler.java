@@ -0,0 +1,179 @@
+package de.cpg.oss.ebics.client;
+
+import de.cpg.oss.ebics.api.FileTransfer;
+import de.cpg.oss.ebics.api.exception.EbicsException;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Fetches a batch of orders, possibly for many partners and banks, over a bounded pool of worker threads.
+ * <p>
+ * <p>No more than the given number of downloads run against a single bank host at any time. Jobs for a bank that
+ * has reached its limit wait in a queue of their own and do not occupy a worker, so that other banks keep being
+ * served in the meantime.
+ */
+@Slf4j
+public final class DownloadScheduler implements Closeable {
+
+    public static final int DEFAULT_WORKERS = 8;
+    public static final int DEFAULT_MAX_DOWNLOADS_PER_BANK = 2;
+
+    private final ExecutorService executor;
+    private final int maxDownloadsPerBank;
+    private final Downloader downloader;
+
+    public DownloadScheduler() {
+        this(null, null);
+    }
+
+    /**
+     * @param workers             the number of worker threads downloading concurrently
+     * @param maxDownloadsPerBank the maximum number of concurrent downloads from a single bank host
+     */
+    @Builder
+    private DownloadScheduler(final Integer workers, final Integer maxDownloadsPerBank) {
+        this(workers, maxDownloadsPerBank, DownloadScheduler::fetch);
+    }
+
+    DownloadScheduler(final Integer workers, final Integer maxDownloadsPerBank, final Downloader downloader) {
+        this.executor = Executors.newFixedThreadPool(Optional.ofNullable(workers).orElse(DEFAULT_WORKERS));
+        this.maxDownloadsPerBank = Optional.ofNullable(maxDownloadsPerBank).orElse(DEFAULT_MAX_DOWNLOADS_PER_BANK);
+        this.downloader = downloader;
+    }
+
+    /**
+     * Runs all given jobs and waits for them to finish. A failing job does not affect the others, its error is
+     * recorded in the report instead.
+     *
+     * @param jobs the orders to fetch
+     * @return the result of every job, in the order of the given jobs, and the aggregate throughput
+     */
+    public DownloadReport run(final Collection<DownloadJob> jobs) {
+        final Instant started = Instant.now();
+        final Map<String, BankQueue> bankQueues = new HashMap<>();
+
+        final List<CompletableFuture<DownloadResult>> results = jobs.stream()
+                .map(job -> {
+                    final CompletableFuture<DownloadResult> result = new CompletableFuture<>();
+                    bankQueues.computeIfAbsent(job.getSession().getBank().getId(), hostId -> new BankQueue())
+                            .submit(() -> result.complete(download(job)));
+                    return result;
+                })
+                .collect(Collectors.toList());
+
+        final DownloadReport report = new DownloadReport(
+                results.stream().map(CompletableFuture::join).collect(Collectors.toList()),
+                Duration.between(started, Instant.now()));
+
+        log.info("Downloaded {} of {} orders, {} bytes in {} ms ({} bytes/s)",
+                report.getSucceeded().size(), jobs.size(), report.getTotalBytes(),
+                report.getElapsed().toMillis(), Math.round(report.getBytesPerSecond()));
+        return report;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private DownloadResult download(final DownloadJob job) {
+        final Instant started = Instant.now();
+        final AtomicLong bytes = new AtomicLong();
+        try {
+            downloader.download(job, () -> new CountingOutputStream(job.getSink().get(), bytes));
+            return new DownloadResult(job, bytes.get(), Duration.between(started, Instant.now()), null);
+        } catch (final EbicsException | RuntimeException e) {
+            log.warn(MessageFormat.format("Error downloading {0} for partner {1} from bank {2}",
+                    job.getOrderType(), job.getSession().getPartner().getId(), job.getSession().getBank().getId()),
+                    e);
+            return new DownloadResult(job, bytes.get(), Duration.between(started, Instant.now()), e);
+        }
+    }
+
+    private static void fetch(final DownloadJob job, final Supplier<OutputStream> sink) throws EbicsException {
+        final FileTransfer transaction = FileTransaction.createFileDownloadTransaction(job.getSession(),
+                job.getOrderType(), job.isTest(), job.getStart(), job.getEnd());
+        final FileTransfer downloaded = FileTransaction.downloadFile(job.getSession(), transaction, sink);
+        if (downloaded.hasNext()) {
+            throw new IllegalStateException(MessageFormat.format(
+                    "Download of {0} stopped at segment {1} of {2} for transaction {3}",
+                    job.getOrderType(), downloaded.getSegmentNumber(), downloaded.getNumSegments(),
+                    downloaded.getTransactionId()));
+        }
+    }
+
+    @FunctionalInterface
+    interface Downloader {
+        void download(DownloadJob job, Supplier<OutputStream> sink) throws EbicsException;
+    }
+
+    /**
+     * Hands the jobs for one bank host over to the workers, never more than the allowed number at a time.
+     */
+    private final class BankQueue {
+
+        private final Queue<Runnable> pending = new ArrayDeque<>();
+        private int active;
+
+        synchronized void submit(final Runnable task) {
+            pending.add(task);
+            dispatch();
+        }
+
+        private synchronized void dispatch() {
+            while (active < maxDownloadsPerBank && !pending.isEmpty()) {
+                final Runnable task = pending.poll();
+                active++;
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        completed();
+                    }
+                });
+            }
+        }
+
+        private synchronized void completed() {
+            active--;
+            dispatch();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private final AtomicLong count;
+
+        private CountingOutputStream(final OutputStream out, final AtomicLong count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count.addAndGet(len);
+        }
+    }
+}
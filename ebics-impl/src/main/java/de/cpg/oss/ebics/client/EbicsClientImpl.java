@@ -4,13 +4,16 @@ import de.cpg.oss.ebics.api.*;
 import de.cpg.oss.ebics.api.exception.EbicsException;
 import de.cpg.oss.ebics.session.*;
 import de.cpg.oss.ebics.utils.KeyUtil;
+import de.cpg.oss.ebics.utils.XmlUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.Path;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.Security;
@@ -24,23 +27,51 @@ import java.util.stream.Collectors;
  * the ebics bank server like sending the INI, HIA and HPB requests
  * for keys retrieval and also performs the files transfer including
  * uploads and downloads.
+ * <p>
+ * <p>Closing the client releases the transport if the client created it; a transport passed in is owned by the
+ * caller and left open.
  *
  * @author hachani
  */
 @Slf4j
-public class EbicsClientImpl implements EbicsClient {
+public class EbicsClientImpl implements EbicsClient, Closeable {
 
     private final EbicsConfiguration configuration;
+    private final EbicsTransport transport;
+    private final boolean ownsTransport;
 
     /**
-     * Constructs a new ebics client application
+     * Constructs a new ebics client application using a pooled HTTP transport with default settings, which is
+     * closed together with the client
      *
      * @param configuration the application configuration
      */
     public EbicsClientImpl(final EbicsConfiguration configuration) {
+        this(configuration, new PooledHttpTransport(), true);
+    }
+
+    /**
+     * Constructs a new ebics client application
+     *
+     * @param configuration the application configuration
+     * @param transport     the transport to send requests to the bank with, which is left open when the client is
+     *                      closed
+     */
+    public EbicsClientImpl(final EbicsConfiguration configuration, final EbicsTransport transport) {
+        this(configuration, transport, false);
+    }
+
+    private EbicsClientImpl(final EbicsConfiguration configuration,
+                            final EbicsTransport transport,
+                            final boolean ownsTransport) {
         this.configuration = configuration;
+        this.transport = transport;
+        this.ownsTransport = ownsTransport;
         org.apache.xml.security.Init.init();
         Security.addProvider(new BouncyCastleProvider());
+        if (configuration.isPreloadXmlContexts()) {
+            XmlUtil.preloadContexts();
+        }
     }
 
     @Override
@@ -61,6 +92,7 @@ public class EbicsClientImpl implements EbicsClient {
                 .persistenceProvider(InMemoryPersistenceProvider.INSTANCE)
                 .xmlMessageTracer(Slf4jXmlMessageTracer.INSTANCE)
                 .fileTransferManager(new DefaultFileTransferManager(InMemoryPersistenceProvider.INSTANCE))
+                .transport(transport)
                 .build()).getSupportedEbicsVersions().stream()
                 .map(v -> v.right().getOrElse(v.getLeft().name())).collect(Collectors.toList());
     }
@@ -79,7 +111,9 @@ public class EbicsClientImpl implements EbicsClient {
                 .configuration(configuration)
                 .persistenceProvider(sessionParameter.getPersistenceProvider())
                 .xmlMessageTracer(sessionParameter.getXmlMessageTracer().orElse(NoOpXmlMessageTracer.INSTANCE))
-                .fileTransferManager(new DefaultFileTransferManager(sessionParameter.getPersistenceProvider()))
+                .fileTransferManager(new DefaultFileTransferManager(sessionParameter.getPersistenceProvider(),
+                        configuration.getCompressionLevel()))
+                .transport(transport)
                 .build();
     }
 
@@ -110,20 +144,7 @@ public class EbicsClientImpl implements EbicsClient {
 
     @Override
     public EbicsSession collectInformation(final EbicsSession session) throws EbicsException {
-        final EbicsBank bankWithKeys;
-        if (null == session.getBank().getEncryptionKey() || null == session.getBank().getAuthenticationKey()) {
-            bankWithKeys = KeyManagement.getBankPublicKeys(session);
-        } else {
-            bankWithKeys = session.getBank();
-        }
-
-        if (!bankWithKeys.equals(session.getBank())) {
-            try {
-                session.getPersistenceProvider().save(EbicsBank.class, bankWithKeys);
-            } catch (final IOException e) {
-                throw new RuntimeException(e);
-            }
-        }
+        final EbicsBank bankWithKeys = ClientUtil.await(KeyManagement.bankWithPublicKeysAsync(session));
 
         return save(KeyManagement.collectInformation(session.withBank(bankWithKeys)));
     }
@@ -168,6 +189,14 @@ public class EbicsClientImpl implements EbicsClient {
             final EbicsSession session,
             final File inputFile,
             final OrderType orderType) {
+        return createFileUploadTransaction(session, inputFile.toPath(), orderType);
+    }
+
+    @Override
+    public FileTransfer createFileUploadTransaction(
+            final EbicsSession session,
+            final Path inputFile,
+            final OrderType orderType) {
         return FileTransaction.createFileUploadTransaction(session, inputFile, orderType);
     }
 
@@ -189,21 +218,34 @@ public class EbicsClientImpl implements EbicsClient {
     }
 
     /**
-     * Performs buffers save before quitting the client application.
+     * Performs buffers save before quitting the client application. User, partner and bank are saved as a single
+     * unit of work, and saves deferred by the persistence provider are written out.
      */
     @Override
     public EbicsSession save(final EbicsSession session) {
         try {
             final PersistenceProvider persistenceProvider = session.getPersistenceProvider();
-            persistenceProvider.save(EbicsUser.class, session.getUser());
-            persistenceProvider.save(EbicsPartner.class, session.getPartner());
-            persistenceProvider.save(EbicsBank.class, session.getBank());
+            persistenceProvider.saveAll(new UnitOfWork()
+                    .save(EbicsUser.class, session.getUser())
+                    .save(EbicsPartner.class, session.getPartner())
+                    .save(EbicsBank.class, session.getBank()));
+            persistenceProvider.flush();
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
         return session;
     }
 
+    /**
+     * Closes the transport if this client created it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsTransport && transport instanceof Closeable) {
+            ((Closeable) transport).close();
+        }
+    }
+
     private EbicsSession.EbicsSessionBuilder loadSession(final EbicsSessionParameter sessionParameter) throws IOException {
         final PersistenceProvider persistenceProvider = sessionParameter.getPersistenceProvider();
 
@@ -224,12 +266,10 @@ public class EbicsClientImpl implements EbicsClient {
                     .uri(sessionParameter.getBankUri().toString())
                     .hostId(sessionParameter.getHostId())
                     .build();
-            sessionParameter.getPersistenceProvider().save(EbicsBank.class, bank);
 
             final EbicsPartner partner = EbicsPartner.builder()
                     .partnerId(sessionParameter.getPartnerId())
                     .build();
-            sessionParameter.getPersistenceProvider().save(EbicsPartner.class, partner);
 
             final EbicsUser user = EbicsUser.builder()
                     .userId(sessionParameter.getUserId())
@@ -238,7 +278,11 @@ public class EbicsClientImpl implements EbicsClient {
                     .passwordCallback(sessionParameter.getPasswordCallback()
                             .orElseGet(() -> new DefaultPasswordCallback(sessionParameter.getUserId(), "")))
                     .build();
-            sessionParameter.getPersistenceProvider().save(EbicsUser.class, user);
+
+            sessionParameter.getPersistenceProvider().saveAll(new UnitOfWork()
+                    .save(EbicsBank.class, bank)
+                    .save(EbicsPartner.class, partner)
+                    .save(EbicsUser.class, user));
 
             return EbicsSession.builder()
                     .user(user)
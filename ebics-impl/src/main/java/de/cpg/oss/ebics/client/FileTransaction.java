@@ -1,20 +1,32 @@
 package de.cpg.oss.ebics.client;
 
+import de.cpg.oss.ebics.api.EbicsConfiguration;
 import de.cpg.oss.ebics.api.EbicsSession;
 import de.cpg.oss.ebics.api.FileTransfer;
 import de.cpg.oss.ebics.api.OrderType;
 import de.cpg.oss.ebics.api.exception.EbicsException;
 import de.cpg.oss.ebics.utils.CryptoUtil;
+import de.cpg.oss.ebics.utils.ExecutorUtil;
+import de.cpg.oss.ebics.utils.IOUtil;
 import de.cpg.oss.ebics.xml.*;
 import lombok.extern.slf4j.Slf4j;
 import org.ebics.h004.EbicsRequest;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 
 /**
@@ -51,10 +63,10 @@ abstract class FileTransaction {
 
     static FileTransfer createFileUploadTransaction(
             final EbicsSession session,
-            final File inputFile,
+            final Path inputFile,
             final OrderType orderType) {
-        try {
-            return session.getFileTransferManager().createUploadTransaction(orderType, new FileInputStream(inputFile));
+        try (final InputStream inputStream = IOUtil.newInputStream(inputFile)) {
+            return session.getFileTransferManager().createUploadTransaction(orderType, inputStream);
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
@@ -62,27 +74,32 @@ abstract class FileTransaction {
 
     static FileTransfer uploadFile(final EbicsSession session,
                                    final FileTransfer transaction) throws EbicsException {
-        FileTransfer current = transaction;
-        try {
-            if (null == transaction.getTransactionId() || 0 == transaction.getSegmentNumber()) {
-                current = uploadInitRequest(session, transaction);
-            }
-            while (current.hasNext()) {
-                current = uploadSegment(session, current.next());
-            }
-        } catch (final Exception e) {
-            log.error(
-                    MessageFormat.format("Error uploading segment {} of {} for file transfer with ID {}",
-                            current.getSegmentNumber(),
-                            current.getNumSegments(),
-                            current.getTransferId()),
-                    e);
-            return current;
-        }
+        return ClientUtil.await(uploadFileAsync(session, transaction));
+    }
+
+    static CompletableFuture<FileTransfer> uploadFileAsync(final EbicsSession session,
+                                                           final FileTransfer transaction) {
+        final AtomicReference<FileTransfer> current = new AtomicReference<>(transaction);
+        return CompletableFuture.completedFuture(transaction)
+                .thenCompose(fileTransfer -> null == fileTransfer.getTransactionId() || 0 == fileTransfer.getSegmentNumber()
+                        ? uploadInitRequest(session, fileTransfer)
+                        : CompletableFuture.completedFuture(fileTransfer))
+                .thenCompose(fileTransfer -> uploadSegments(session, fileTransfer, current))
+                .handle((uploaded, error) -> {
+                    if (null != error) {
+                        log.error(
+                                MessageFormat.format("Error uploading segment {0} of {1} for file transfer with ID {2}",
+                                        current.get().getSegmentNumber(),
+                                        current.get().getNumSegments(),
+                                        current.get().getTransferId()),
+                                error);
+                        return current.get();
+                    }
 
-        session.getFileTransferManager().finalizeUploadTransaction(current);
+                    session.getFileTransferManager().finalizeUploadTransaction(uploaded);
 
-        return current;
+                    return uploaded;
+                });
     }
 
     static FileTransfer createFileDownloadTransaction(
@@ -91,101 +108,203 @@ abstract class FileTransaction {
             final boolean isTest,
             final LocalDate start,
             final LocalDate end) throws EbicsException {
-        final EbicsRequest request = DInitializationRequestElement.builder()
+        return ClientUtil.await(createFileDownloadTransactionAsync(session, orderType, isTest, start, end));
+    }
+
+    static CompletableFuture<FileTransfer> createFileDownloadTransactionAsync(
+            final EbicsSession session,
+            final OrderType orderType,
+            final boolean isTest,
+            final LocalDate start,
+            final LocalDate end) {
+        final SignedRequest<EbicsRequest> request = DInitializationRequestElement.builder()
                 .orderType(orderType)
                 .startRange(start)
                 .endRange(end)
                 .test(isTest)
                 .build().create(session);
 
-        final DInitializationResponseElement responseElement = ClientUtil.requestExchange(session, request,
-                DInitializationResponseElement::parse);
-
-        final FileTransfer fileTransfer = session.getFileTransferManager().createDownloadTransaction(
-                orderType,
-                responseElement.getNumSegments(),
-                CryptoUtil.decryptRSA(responseElement.getTransactionKey(), session.getUserEncryptionKey()),
-                responseElement.getTransactionId());
+        return ClientUtil.requestExchangeAsync(session, request, DInitializationResponseElement::parse)
+                .thenApply(responseElement -> {
+                    final FileTransfer fileTransfer = session.getFileTransferManager().createDownloadTransaction(
+                            orderType,
+                            responseElement.getNumSegments(),
+                            CryptoUtil.decryptRSA(responseElement.getTransactionKey(), session.getUserEncryptionKey()),
+                            responseElement.getTransactionId());
 
-        session.getFileTransferManager().saveSegment(fileTransfer, responseElement.getOrderData());
+                    session.getFileTransferManager().saveSegment(fileTransfer, responseElement.getOrderData());
 
-        return fileTransfer;
+                    return fileTransfer;
+                });
     }
 
     static FileTransfer downloadFile(final EbicsSession session,
                                      final FileTransfer transaction,
                                      final File outputFile) throws EbicsException {
-        FileTransfer current = transaction;
-        try {
-            while (current.hasNext()) {
-                current = downloadSegment(session, current.next());
+        return ClientUtil.await(downloadFileAsync(session, transaction, outputFile));
+    }
+
+    static CompletableFuture<FileTransfer> downloadFileAsync(final EbicsSession session,
+                                                             final FileTransfer transaction,
+                                                             final File outputFile) {
+        return downloadFileAsync(session, transaction, () -> {
+            try {
+                return new FileOutputStream(outputFile);
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
             }
-        } catch (final Exception e) {
-            log.error(
-                    MessageFormat.format("Error downloading segment {} of {} for file transfer with ID {}",
-                            current.getSegmentNumber(),
-                            current.getNumSegments(),
-                            current.getTransferId()),
-                    e);
-            return current;
-        }
+        });
+    }
 
-        final EbicsRequest ebicsRequest = new ReceiptRequestElement(current.getTransactionId())
-                .create(session);
-        ClientUtil.requestExchange(session, ebicsRequest, ReceiptResponseElement::parse);
+    static FileTransfer downloadFile(final EbicsSession session,
+                                     final FileTransfer transaction,
+                                     final Supplier<OutputStream> sink) throws EbicsException {
+        return ClientUtil.await(downloadFileAsync(session, transaction, sink));
+    }
 
-        try {
-            session.getFileTransferManager().finalizeDownloadTransaction(transaction, new FileOutputStream(outputFile));
-        } catch (final IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * Downloads all remaining segments of the given transaction. The order data is decrypted, uncompressed and
+     * written to the sink while the segments are fetched, starting with those already downloaded. The sink is closed
+     * once all segments have been written. If the download fails, the sink is closed as well and is left with
+     * incomplete order data; resuming the transaction writes the complete order data to a newly opened sink.
+     */
+    static CompletableFuture<FileTransfer> downloadFileAsync(final EbicsSession session,
+                                                             final FileTransfer transaction,
+                                                             final Supplier<OutputStream> sink) {
+        final AtomicReference<FileTransfer> current = new AtomicReference<>(transaction);
+        final SegmentDecoder decoder = new SegmentDecoder(transaction.getNonce(), sink,
+                ExecutorUtil.executorFor(session.getConfiguration()));
+        for (int segmentNumber = 1; segmentNumber <= transaction.getSegmentNumber(); segmentNumber++) {
+            final FileTransfer downloaded = transaction.withSegmentNumber(segmentNumber);
+            decoder.decode(() -> session.getFileTransferManager().loadSegment(downloaded).getContent());
         }
 
-        return current;
+        return CompletableFuture.completedFuture(transaction)
+                .thenCompose(fileTransfer -> downloadSegments(session, fileTransfer, current, decoder))
+                .handle((downloaded, error) -> {
+                    if (null != error) {
+                        log.error(
+                                MessageFormat.format("Error downloading segment {0} of {1} for file transfer with ID {2}",
+                                        current.get().getSegmentNumber(),
+                                        current.get().getNumSegments(),
+                                        current.get().getTransferId()),
+                                error);
+                        return decoder.abort().thenApply(aborted -> current.get());
+                    }
+
+                    final SignedRequest<EbicsRequest> ebicsRequest = new ReceiptRequestElement(
+                            downloaded.getTransactionId()).create(session);
+                    return ClientUtil.requestExchangeAsync(session, ebicsRequest, ReceiptResponseElement::parse)
+                            .thenCombine(decoder.finish(), (receipt, decoded) -> {
+                                session.getFileTransferManager().finalizeDownloadTransaction(transaction);
+                                return downloaded;
+                            });
+                })
+                .thenCompose(Function.identity());
     }
 
-    private static FileTransfer uploadInitRequest(final EbicsSession session,
-                                                  final FileTransfer transaction) throws EbicsException {
-        final EbicsRequest request = UInitializationRequestElement.builder()
+    private static CompletableFuture<FileTransfer> uploadInitRequest(final EbicsSession session,
+                                                                     final FileTransfer transaction) {
+        final SignedRequest<EbicsRequest> request = UInitializationRequestElement.builder()
                 .orderType(transaction.getOrderType())
                 .digest(transaction.getDigest())
                 .numSegments(transaction.getNumSegments())
                 .nonce(transaction.getNonce())
                 .build().create(session);
 
-        final EbicsResponseElement responseElement = ClientUtil.requestExchange(session, request);
-        return transaction.withTransactionId(responseElement.getTransactionId());
+        return ClientUtil.requestExchangeAsync(session, request)
+                .thenApply(responseElement -> transaction.withTransactionId(responseElement.getTransactionId()));
+    }
+
+    /**
+     * Uploads the remaining segments as a pipeline: the request for the next segment is loaded and signed while
+     * the previous one is in flight, and up to {@link EbicsConfiguration#getMaxSegmentsInFlight()} segments are
+     * sent concurrently. The last segment is only sent after all others have been acknowledged, and
+     * <code>current</code> always holds the highest segment up to which all segments have been transferred.
+     */
+    private static CompletableFuture<FileTransfer> uploadSegments(final EbicsSession session,
+                                                                  final FileTransfer fileTransfer,
+                                                                  final AtomicReference<FileTransfer> current) {
+        current.set(fileTransfer);
+
+        final int maxSegmentsInFlight = Math.max(1, session.getConfiguration().getMaxSegmentsInFlight());
+        final Executor executor = ExecutorUtil.executorFor(session.getConfiguration());
+        final List<CompletableFuture<FileTransfer>> sent = new ArrayList<>();
+        CompletableFuture<Void> previousPrepared = CompletableFuture.completedFuture(null);
+        CompletableFuture<FileTransfer> uploaded = CompletableFuture.completedFuture(fileTransfer);
+
+        for (FileTransfer segment = fileTransfer; segment.hasNext(); ) {
+            segment = segment.next();
+            final FileTransfer segmentTransfer = segment;
+            final int index = sent.size();
+
+            final CompletableFuture<SignedRequest<EbicsRequest>> request = CompletableFuture.allOf(
+                    previousPrepared, sentBefore(sent, index - maxSegmentsInFlight - 1))
+                    .thenApplyAsync(prepared -> uploadSegmentRequest(session, segmentTransfer), executor);
+            previousPrepared = request.thenAccept(prepared -> {
+            });
+
+            final CompletableFuture<?> sendSlot = segmentTransfer.isLastSegment()
+                    ? uploaded
+                    : sentBefore(sent, index - maxSegmentsInFlight);
+            final CompletableFuture<FileTransfer> response = request
+                    .thenCombine(sendSlot, (ebicsRequest, slot) -> ebicsRequest)
+                    .thenCompose(ebicsRequest -> ClientUtil.requestExchangeAsync(session, ebicsRequest))
+                    .thenApply(responseElement -> segmentTransfer);
+            sent.add(response);
+
+            uploaded = uploaded.thenCombine(response, (previous, segmentUploaded) -> {
+                current.set(segmentUploaded);
+                return segmentUploaded;
+            });
+        }
+        return uploaded;
+    }
+
+    private static CompletableFuture<?> sentBefore(final List<CompletableFuture<FileTransfer>> sent, final int index) {
+        return index < 0 ? CompletableFuture.completedFuture(null) : sent.get(index);
     }
 
-    private static FileTransfer uploadSegment(final EbicsSession session,
-                                              final FileTransfer fileTransfer) throws EbicsException {
+    private static SignedRequest<EbicsRequest> uploadSegmentRequest(final EbicsSession session,
+                                                                    final FileTransfer fileTransfer) {
         log.debug("Upload segment number {} of {}", fileTransfer.getSegmentNumber(), fileTransfer.getNumSegments());
 
-        final EbicsRequest ebicsRequest;
-        ebicsRequest = UTransferRequestElement.builder()
+        return UTransferRequestElement.builder()
                 .segmentNumber(fileTransfer.getSegmentNumber())
                 .lastSegment(fileTransfer.isLastSegment())
                 .transactionId(fileTransfer.getTransactionId())
                 .content(session.getFileTransferManager().loadSegment(fileTransfer).getContent())
                 .build().create(session);
+    }
 
-        ClientUtil.requestExchange(session, ebicsRequest);
-
-        return fileTransfer;
+    private static CompletableFuture<FileTransfer> downloadSegments(final EbicsSession session,
+                                                                    final FileTransfer fileTransfer,
+                                                                    final AtomicReference<FileTransfer> current,
+                                                                    final SegmentDecoder decoder) {
+        current.set(fileTransfer);
+        if (!fileTransfer.hasNext()) {
+            return CompletableFuture.completedFuture(fileTransfer);
+        }
+        return downloadSegment(session, fileTransfer.next(), decoder)
+                .thenCompose(downloaded -> downloadSegments(session, downloaded, current, decoder));
     }
 
-    private static FileTransfer downloadSegment(final EbicsSession session,
-                                                final FileTransfer fileTransfer) throws EbicsException {
+    private static CompletableFuture<FileTransfer> downloadSegment(final EbicsSession session,
+                                                                   final FileTransfer fileTransfer,
+                                                                   final SegmentDecoder decoder) {
         log.debug("Download segment number {} of {}", fileTransfer.getSegmentNumber(), fileTransfer.getNumSegments());
 
-        final EbicsRequest ebicsRequest = DTransferRequestElement.builder()
+        final SignedRequest<EbicsRequest> ebicsRequest = DTransferRequestElement.builder()
                 .segmentNumber(fileTransfer.getSegmentNumber())
                 .lastSegment(fileTransfer.isLastSegment())
                 .transactionId(fileTransfer.getTransactionId())
                 .build().create(session);
 
-        final EbicsResponseElement responseElement = ClientUtil.requestExchange(session, ebicsRequest);
-        session.getFileTransferManager().saveSegment(fileTransfer, responseElement.getOrderData());
-
-        return fileTransfer;
+        return ClientUtil.requestExchangeAsync(session, ebicsRequest).thenApply(responseElement -> {
+            final byte[] orderData = responseElement.getOrderData();
+            session.getFileTransferManager().saveSegment(fileTransfer, orderData);
+            decoder.decode(() -> orderData);
+            return fileTransfer;
+        });
     }
 }
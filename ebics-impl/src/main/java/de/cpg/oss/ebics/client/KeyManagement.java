@@ -14,6 +14,7 @@ import org.ebics.h004.HIARequestOrderDataType;
 import org.ebics.s001.SignaturePubKeyOrderData;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import static de.cpg.oss.ebics.xml.EbicsXmlFactory.ebicsUnsecuredRequest;
 import static de.cpg.oss.ebics.xml.EbicsXmlFactory.hiaRequestOrderData;
@@ -36,7 +37,7 @@ abstract class KeyManagement {
         final EbicsUnsecuredRequest unsecuredRequest = ebicsUnsecuredRequest(
                 session,
                 orderType,
-                ZipUtil.compress(XmlUtil.prettyPrint(
+                ZipUtil.compress(XmlUtil.compact(
                         SignaturePubKeyOrderData.class,
                         EbicsSignatureXmlFactory.signaturePubKeyOrderData(session))));
 
@@ -63,7 +64,7 @@ abstract class KeyManagement {
         final EbicsUnsecuredRequest unsecuredRequest = ebicsUnsecuredRequest(
                 session,
                 orderType,
-                ZipUtil.compress(XmlUtil.prettyPrint(
+                ZipUtil.compress(XmlUtil.compact(
                         HIARequestOrderDataType.class,
                         hiaRequestOrderData(session),
                         "HIARequestOrderData")));
@@ -90,89 +91,125 @@ abstract class KeyManagement {
      * The keys will be activated immediately after successful completion of the transfer.
      */
     static EbicsBank getBankPublicKeys(final EbicsSession session) throws EbicsException {
-        final EbicsNoPubKeyDigestsRequest ebicsNoPubKeyDigestsRequest = HPBRequestElement.create(session);
-        final String baseElementName = ebicsNoPubKeyDigestsRequest.getHeader().getStatic().getOrderDetails().getOrderType();
-        final KeyManagementResponseElement response = ClientUtil.requestExchange(session,
-                EbicsNoPubKeyDigestsRequest.class, ebicsNoPubKeyDigestsRequest, KeyManagementResponseElement::parse,
-                baseElementName);
-        final HPBResponseOrderDataElement orderData = ClientUtil.orderDataElement(session,
-                response, HPBResponseOrderDataElement::parse, baseElementName);
-
-        return session.getBank()
-                .withAuthenticationKey(orderData.getBankAuthenticationKey())
-                .withEncryptionKey(orderData.getBankEncryptionKey());
+        return ClientUtil.await(getBankPublicKeysAsync(session));
     }
 
-    static EbicsSession collectInformation(final EbicsSession session) throws EbicsException {
-        EbicsBank updatedBank = sendHEV(session);
+    static CompletableFuture<EbicsBank> getBankPublicKeysAsync(final EbicsSession session) {
+        final SignedRequest<EbicsNoPubKeyDigestsRequest> ebicsNoPubKeyDigestsRequest = HPBRequestElement.create(session);
+        final String baseElementName = ebicsNoPubKeyDigestsRequest.getRequest().getHeader().getStatic()
+                .getOrderDetails().getOrderType();
+        return ClientUtil.requestExchangeAsync(session,
+                ebicsNoPubKeyDigestsRequest, KeyManagementResponseElement::parse, baseElementName)
+                .thenApply(response -> {
+                    final HPBResponseOrderDataElement orderData = ClientUtil.orderDataElement(session,
+                            response, HPBResponseOrderDataElement::parse, baseElementName);
+
+                    return session.getBank()
+                            .withAuthenticationKey(orderData.getBankAuthenticationKey())
+                            .withEncryptionKey(orderData.getBankEncryptionKey());
+                });
+    }
 
-        final OrderType orderType = OrderType.HPD;
-        final EbicsRequest ebicsRequest = EbicsRequestElement.createSigned(session, orderType);
+    /**
+     * Fetches the bank's public keys unless they are already known and persists the bank if it has been updated.
+     */
+    static CompletableFuture<EbicsBank> bankWithPublicKeysAsync(final EbicsSession session) {
+        if (null != session.getBank().getEncryptionKey() && null != session.getBank().getAuthenticationKey()) {
+            return CompletableFuture.completedFuture(session.getBank());
+        }
 
-        final EbicsResponseElement responseElement = ClientUtil.requestExchange(session, ebicsRequest);
-        final HPDResponseOrderDataElement orderData = ClientUtil.orderDataElement(session, responseElement,
-                HPDResponseOrderDataElement::parse, orderType.name());
-        updatedBank = updatedBank.withName(orderData.getBankName());
+        return getBankPublicKeysAsync(session).thenApply(bankWithKeys -> {
+            if (!bankWithKeys.equals(session.getBank())) {
+                try {
+                    session.getPersistenceProvider().save(EbicsBank.class, bankWithKeys);
+                } catch (final IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return bankWithKeys;
+        });
+    }
 
-        if (orderData.isDownloadableOrderDataSupported()) {
-            updatedBank = sendHAA(session.withBank(updatedBank));
-        }
+    static EbicsSession collectInformation(final EbicsSession session) throws EbicsException {
+        return ClientUtil.await(collectInformationAsync(session));
+    }
 
-        EbicsPartner updatedPartner = session.getPartner();
-        EbicsUser updatedUser = session.getUser();
-        if (orderData.isClientDataDownloadSupported()) {
-            updatedPartner = sendHKD(session.withBank(updatedBank));
-            updatedUser = sendHTD(session.withBank(updatedBank).withPartner(updatedPartner));
-        }
+    static CompletableFuture<EbicsSession> collectInformationAsync(final EbicsSession session) {
+        final OrderType orderType = OrderType.HPD;
 
-        return session.withBank(updatedBank)
-                .withPartner(updatedPartner)
-                .withUser(updatedUser);
+        return sendHEVAsync(session).thenCompose(bankWithVersions -> ClientUtil.requestExchangeAsync(session,
+                EbicsRequestElement.createSigned(session, orderType)).thenCompose(responseElement -> {
+            final HPDResponseOrderDataElement orderData = ClientUtil.orderDataElement(session, responseElement,
+                    HPDResponseOrderDataElement::parse, orderType.name());
+            final EbicsBank namedBank = bankWithVersions.withName(orderData.getBankName());
+
+            final CompletableFuture<EbicsBank> updatedBank = orderData.isDownloadableOrderDataSupported()
+                    ? sendHAAAsync(session.withBank(namedBank))
+                    : CompletableFuture.completedFuture(namedBank);
+
+            return updatedBank.thenCompose(bank -> {
+                if (!orderData.isClientDataDownloadSupported()) {
+                    return CompletableFuture.completedFuture(session.withBank(bank));
+                }
+                return sendHKDAsync(session.withBank(bank)).thenCompose(partner ->
+                        sendHTDAsync(session.withBank(bank).withPartner(partner)).thenApply(user ->
+                                session.withBank(bank)
+                                        .withPartner(partner)
+                                        .withUser(user)));
+            });
+        }));
     }
 
     static EbicsBank sendHEV(final EbicsSession session) throws EbicsException {
+        return ClientUtil.await(sendHEVAsync(session));
+    }
+
+    static CompletableFuture<EbicsBank> sendHEVAsync(final EbicsSession session) {
         final EbicsHEVRequest hevRequest = EbicsHEVRequest.builder()
                 .withHostID(session.getHostId())
                 .build();
 
-        final HEVResponseElement responseElement = ClientUtil.requestExchange(session, EbicsHEVRequest.class,
-                hevRequest, HEVResponseElement::parse, OrderType.HEV.name());
-
-        return session.getBank().withSupportedEbicsVersions(responseElement.getSupportedEbicsVersions());
+        return ClientUtil.requestExchangeAsync(session, EbicsHEVRequest.class, hevRequest, HEVResponseElement::parse,
+                OrderType.HEV.name())
+                .thenApply(responseElement ->
+                        session.getBank().withSupportedEbicsVersions(responseElement.getSupportedEbicsVersions()));
     }
 
-    private static EbicsBank sendHAA(final EbicsSession session) throws EbicsException {
+    private static CompletableFuture<EbicsBank> sendHAAAsync(final EbicsSession session) {
         final OrderType orderType = OrderType.HAA;
-        final EbicsRequest ebicsRequest = EbicsRequestElement.createSigned(session, orderType);
-        final EbicsResponseElement responseElement = ClientUtil.requestExchange(session, ebicsRequest);
-        final HAAResponseOrderDataElement orderData = ClientUtil.orderDataElement(session, responseElement,
-                HAAResponseOrderDataElement::parse, orderType.name());
+        final SignedRequest<EbicsRequest> ebicsRequest = EbicsRequestElement.createSigned(session, orderType);
+        return ClientUtil.requestExchangeAsync(session, ebicsRequest).thenApply(responseElement -> {
+            final HAAResponseOrderDataElement orderData = ClientUtil.orderDataElement(session, responseElement,
+                    HAAResponseOrderDataElement::parse, orderType.name());
 
-        return session.getBank().withSupportedOrderTypes(orderData.getSupportedOrderTypes());
+            return session.getBank().withSupportedOrderTypes(orderData.getSupportedOrderTypes());
+        });
     }
 
-    private static EbicsPartner sendHKD(final EbicsSession session) throws EbicsException {
+    private static CompletableFuture<EbicsPartner> sendHKDAsync(final EbicsSession session) {
         final OrderType orderType = OrderType.HKD;
-        final EbicsRequest ebicsRequest = EbicsRequestElement.createSigned(session, orderType);
+        final SignedRequest<EbicsRequest> ebicsRequest = EbicsRequestElement.createSigned(session, orderType);
 
-        final EbicsResponseElement responseElement = ClientUtil.requestExchange(session, ebicsRequest);
-        final HKDResponseOrderDataElement orderData = ClientUtil.orderDataElement(session, responseElement,
-                HKDResponseOrderDataElement::parse, orderType.name());
+        return ClientUtil.requestExchangeAsync(session, ebicsRequest).thenApply(responseElement -> {
+            final HKDResponseOrderDataElement orderData = ClientUtil.orderDataElement(session, responseElement,
+                    HKDResponseOrderDataElement::parse, orderType.name());
 
-        return session.getPartner().withBankAccounts(orderData.getBankAccounts());
+            return session.getPartner().withBankAccounts(orderData.getBankAccounts());
+        });
     }
 
-    private static EbicsUser sendHTD(final EbicsSession session) throws EbicsException {
+    private static CompletableFuture<EbicsUser> sendHTDAsync(final EbicsSession session) {
         final OrderType orderType = OrderType.HTD;
-        final EbicsRequest ebicsRequest = EbicsRequestElement.createSigned(session, orderType);
+        final SignedRequest<EbicsRequest> ebicsRequest = EbicsRequestElement.createSigned(session, orderType);
 
-        final EbicsResponseElement responseElement = ClientUtil.requestExchange(session, ebicsRequest);
-        final HTDResponseOrderDataElement orderData = ClientUtil.orderDataElement(session, responseElement,
-                HTDResponseOrderDataElement::parse, orderType.name());
+        return ClientUtil.requestExchangeAsync(session, ebicsRequest).thenApply(responseElement -> {
+            final HTDResponseOrderDataElement orderData = ClientUtil.orderDataElement(session, responseElement,
+                    HTDResponseOrderDataElement::parse, orderType.name());
 
-        return session.getUser()
-                .withStatus(orderData.getUserStatus())
-                .withPermittedOrderTypes(orderData.getPermittedUserOrderTypes());
+            return session.getUser()
+                    .withStatus(orderData.getUserStatus())
+                    .withPermittedOrderTypes(orderData.getPermittedUserOrderTypes());
+        });
     }
 
     /**
@@ -180,7 +217,7 @@ abstract class KeyManagement {
      * After that you have to start over with sending INI and HIA.
      */
     static EbicsUser lockAccess(final EbicsSession session) throws EbicsException {
-        final EbicsRequest ebicsRequest = EbicsRequestElement.create(session, SPRRequestElement::new);
+        final SignedRequest<EbicsRequest> ebicsRequest = EbicsRequestElement.create(session, SPRRequestElement::new);
 
         ClientUtil.requestExchange(session, ebicsRequest);
 
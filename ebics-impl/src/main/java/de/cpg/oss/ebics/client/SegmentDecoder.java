@@ -0,0 +1,121 @@
+package de.cpg.oss.ebics.client;
+
+import de.cpg.oss.ebics.utils.CryptoUtil;
+import de.cpg.oss.ebics.utils.ZipUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Decrypts and uncompresses the order data of a download while its segments are still being fetched.
+ * <p>
+ * <p>The segments form a single encrypted and compressed stream, so they are decoded strictly in order, on a chain
+ * of asynchronous tasks on the given executor. The thread receiving a segment therefore goes on requesting the next one right away,
+ * and by the time the last segment arrives only that one remains to be decoded. The sink is opened with the first
+ * segment.
+ */
+@Slf4j
+final class SegmentDecoder {
+
+    private final byte[] nonce;
+    private final Supplier<OutputStream> sink;
+    private final Executor executor;
+
+    private CompletableFuture<Void> decoded = CompletableFuture.completedFuture(null);
+
+    // Only accessed by the tasks of the chain, which run one after the other
+    private OutputStream sinkStream;
+    private OutputStream decoder;
+
+    SegmentDecoder(final byte[] nonce, final Supplier<OutputStream> sink, final Executor executor) {
+        this.nonce = nonce;
+        this.sink = sink;
+        this.executor = executor;
+    }
+
+    /**
+     * Queues the next segment for decoding. Segments have to be passed in order.
+     */
+    synchronized void decode(final Supplier<byte[]> segment) {
+        decoded = decoded.thenRunAsync(() -> {
+            try {
+                decoder().write(segment.get());
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Closes the decoder once all queued segments are decoded. If decoding a segment failed, the decoder and the
+     * sink are closed nonetheless and the returned future fails with the original error.
+     *
+     * @return a future completing once all queued segments are decoded and the sink has been closed
+     */
+    synchronized CompletableFuture<Void> finish() {
+        decoded = decoded.handleAsync((result, error) -> {
+            if (null != error) {
+                closeAfterFailure();
+                throw error instanceof CompletionException
+                        ? (CompletionException) error
+                        : new CompletionException(error);
+            }
+            try {
+                decoder().close();
+            } catch (final IOException e) {
+                closeAfterFailure();
+                throw new RuntimeException(e);
+            }
+            return null;
+        }, executor);
+        return decoded;
+    }
+
+    /**
+     * Stops decoding after the download failed and closes the decoder and the sink, which is left with incomplete
+     * order data.
+     *
+     * @return a future completing once the sink has been closed
+     */
+    synchronized CompletableFuture<Void> abort() {
+        decoded = decoded.handle((result, error) -> {
+            closeAfterFailure();
+            return null;
+        });
+        return decoded;
+    }
+
+    /**
+     * Closes the decoder, which returns its pooled cipher and inflater, and then the sink, which the decoder
+     * leaves open if flushing the remaining data fails.
+     */
+    private void closeAfterFailure() {
+        if (null != decoder) {
+            try {
+                decoder.close();
+            } catch (final IOException | RuntimeException e) {
+                log.debug("Error closing the decoder of a failed download", e);
+            }
+        }
+        if (null != sinkStream) {
+            try {
+                sinkStream.close();
+            } catch (final IOException e) {
+                log.warn("Error closing the sink of a failed download", e);
+            }
+        }
+    }
+
+    private OutputStream decoder() {
+        if (null == decoder) {
+            sinkStream = sink.get();
+            decoder = CryptoUtil.decryptAES(ZipUtil.uncompress(sinkStream), nonce);
+        }
+        return decoder;
+    }
+}
@@ -0,0 +1,157 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.api.EbicsBank;
+import de.cpg.oss.ebics.api.EbicsTransport;
+import de.cpg.oss.ebics.utils.ExecutorUtil;
+import lombok.Builder;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.ssl.SSLContexts;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking HTTP transport based on an I/O reactor, so that a small number of threads can keep many bank
+ * conversations in flight at the same time.
+ * <p>
+ * <p>Connections are pooled per bank like in {@link PooledHttpTransport}. Responses are buffered by the reactor and
+ * handed over to the given executor, so that parsing and decryption never block the I/O threads.
+ */
+public final class AsyncHttpTransport implements EbicsTransport, Closeable {
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final Executor executor;
+
+    public AsyncHttpTransport() {
+        this(null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * @param maxConnections        the maximum number of connections in total
+     * @param maxConnectionsPerBank the maximum number of concurrent connections to a single bank host
+     * @param connectTimeout        the timeout for establishing a connection
+     * @param socketTimeout         the maximum period of inactivity while waiting for response data
+     * @param keepAlive             the maximum time an idle connection is kept for reuse
+     * @param sslContext            the SSL context to create TLS connections with, the system default if omitted
+     * @param ioThreads             the number of I/O reactor threads, the number of processors if omitted
+     * @param executor              the executor completing the response futures, which also runs the parsing and
+     *                              persisting chained to them, {@link ExecutorUtil#defaultExecutor()} if omitted
+     */
+    @Builder
+    private AsyncHttpTransport(final Integer maxConnections,
+                               final Integer maxConnectionsPerBank,
+                               final Duration connectTimeout,
+                               final Duration socketTimeout,
+                               final Duration keepAlive,
+                               final SSLContext sslContext,
+                               final Integer ioThreads,
+                               final Executor executor) {
+        this.executor = Optional.ofNullable(executor).orElseGet(ExecutorUtil::defaultExecutor);
+
+        final PoolingNHttpClientConnectionManager connectionManager;
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(IOReactorConfig.custom()
+                            .setIoThreadCount(Optional.ofNullable(ioThreads)
+                                    .orElse(Runtime.getRuntime().availableProcessors()))
+                            .build()),
+                    RegistryBuilder.<SchemeIOSessionStrategy>create()
+                            .register("http", NoopIOSessionStrategy.INSTANCE)
+                            .register("https", new SSLIOSessionStrategy(
+                                    Optional.ofNullable(sslContext).orElseGet(SSLContexts::createSystemDefault)))
+                            .build());
+        } catch (final IOReactorException e) {
+            throw new RuntimeException(e);
+        }
+        connectionManager.setMaxTotal(Optional.ofNullable(maxConnections)
+                .orElse(PooledHttpTransport.DEFAULT_MAX_CONNECTIONS));
+        connectionManager.setDefaultMaxPerRoute(Optional.ofNullable(maxConnectionsPerBank)
+                .orElse(PooledHttpTransport.DEFAULT_MAX_CONNECTIONS_PER_BANK));
+
+        httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(PooledHttpTransport.keepAliveStrategy(
+                        Optional.ofNullable(keepAlive).orElse(PooledHttpTransport.DEFAULT_KEEP_ALIVE)))
+                .setDefaultRequestConfig(PooledHttpTransport.requestConfig(connectTimeout, socketTimeout))
+                .build();
+        httpClient.start();
+    }
+
+    @Override
+    public InputStream send(final EbicsBank bank, final byte[] request) throws IOException {
+        try {
+            return sendAsync(bank, request).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<InputStream> sendAsync(final EbicsBank bank, final byte[] request) {
+        final HttpPost httpPost = new HttpPost(bank.getUri());
+        httpPost.setEntity(new NByteArrayEntity(request, PooledHttpTransport.CONTENT_TYPE));
+
+        final CompletableFuture<InputStream> response = new CompletableFuture<>();
+        httpClient.execute(httpPost, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(final HttpResponse httpResponse) {
+                executor.execute(() -> {
+                    final int statusCode = httpResponse.getStatusLine().getStatusCode();
+                    if (statusCode != HttpStatus.SC_OK) {
+                        response.completeExceptionally(PooledHttpTransport.unexpectedStatus(statusCode));
+                        return;
+                    }
+                    try {
+                        response.complete(httpResponse.getEntity().getContent());
+                    } catch (final IOException e) {
+                        response.completeExceptionally(e);
+                    }
+                });
+            }
+
+            @Override
+            public void failed(final Exception e) {
+                executor.execute(() -> response.completeExceptionally(e));
+            }
+
+            @Override
+            public void cancelled() {
+                executor.execute(() -> response.completeExceptionally(new CancellationException()));
+            }
+        });
+        return response;
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
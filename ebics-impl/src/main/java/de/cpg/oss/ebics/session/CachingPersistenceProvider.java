@@ -0,0 +1,164 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.api.*;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps recently loaded objects of the wrapped provider in memory, so that opening a session does not read
+ * and deserialize bank, partner and user, including their keys, every time.
+ * <p>
+ * <p>Saves and deletes go through to the wrapped provider and invalidate the cached object both before and after the
+ * write, so the next load reads whatever the store ended up with, even when several writes of the same object race.
+ * A load that overlaps a write does not cache what it read. The cache holds at most a given number of objects, evicting the least recently used one,
+ * and objects expire a given time after they were cached, so changes made by other processes sharing the store
+ * are picked up eventually. Objects of types not cached, like file transfer segments, are passed straight through.
+ */
+@Slf4j
+public final class CachingPersistenceProvider implements PersistenceProvider {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    private final PersistenceProvider delegate;
+    private final Set<Class<?>> cachedTypes;
+    private final long timeToLiveMillis;
+    private final Clock clock;
+    private final Map<String, Entry> cache;
+
+    // Incremented by every write, so that a load racing with a write does not cache what it read
+    private long writes;
+
+    /**
+     * Caches users, partners and banks with the default size and time to live.
+     */
+    public CachingPersistenceProvider(final PersistenceProvider delegate) {
+        this(delegate, DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE, EbicsUser.class, EbicsPartner.class, EbicsBank.class);
+    }
+
+    public CachingPersistenceProvider(final PersistenceProvider delegate,
+                                      final int maxSize,
+                                      final Duration timeToLive,
+                                      final Class<?>... cachedTypes) {
+        this(delegate, maxSize, timeToLive, Clock.systemUTC(), cachedTypes);
+    }
+
+    CachingPersistenceProvider(final PersistenceProvider delegate,
+                               final int maxSize,
+                               final Duration timeToLive,
+                               final Clock clock,
+                               final Class<?>... cachedTypes) {
+        this.delegate = delegate;
+        this.cachedTypes = new HashSet<>(Arrays.asList(cachedTypes));
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.clock = clock;
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public <T extends Identifiable> T save(final Class<T> clazz, final T object) throws IOException {
+        if (!cachedTypes.contains(clazz)) {
+            return delegate.save(clazz, object);
+        }
+        invalidate(clazz, object.getId());
+        try {
+            return delegate.save(clazz, object);
+        } finally {
+            invalidate(clazz, object.getId());
+        }
+    }
+
+    @Override
+    public <T extends Identifiable> void saveAll(final Class<T> clazz, final Producer<T> producer) throws IOException {
+        if (!cachedTypes.contains(clazz)) {
+            delegate.saveAll(clazz, producer);
+            return;
+        }
+        producer.produce(object -> save(clazz, object));
+    }
+
+    @Override
+    public void saveAll(final UnitOfWork unitOfWork) throws IOException {
+        unitOfWork.forEach((clazz, object) -> invalidate(clazz, object.getId()));
+        try {
+            delegate.saveAll(unitOfWork);
+        } finally {
+            unitOfWork.forEach((clazz, object) -> invalidate(clazz, object.getId()));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public <T extends Identifiable> T load(final Class<T> clazz, final String id) throws IOException {
+        if (!cachedTypes.contains(clazz)) {
+            return delegate.load(clazz, id);
+        }
+        final long writesBeforeLoad;
+        synchronized (this) {
+            final Entry entry = cache.get(key(clazz, id));
+            if (null != entry) {
+                if (clock.millis() < entry.expiresAt) {
+                    return clazz.cast(entry.object);
+                }
+                cache.remove(key(clazz, id));
+            }
+            writesBeforeLoad = writes;
+        }
+        log.trace("Cache miss for {} {}", clazz.getSimpleName(), id);
+        final T loaded = delegate.load(clazz, id);
+        synchronized (this) {
+            if (writes == writesBeforeLoad) {
+                cache.put(key(clazz, id), new Entry(loaded, clock.millis() + timeToLiveMillis));
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public boolean delete(final Identifiable identifiable) throws IOException {
+        return delete(identifiable.getClass(), identifiable.getId());
+    }
+
+    @Override
+    public <T extends Identifiable> boolean delete(final Class<T> clazz, final String id) throws IOException {
+        invalidate(clazz, id);
+        try {
+            return delegate.delete(clazz, id);
+        } finally {
+            invalidate(clazz, id);
+        }
+    }
+
+    private synchronized void invalidate(final Class<?> clazz, final String id) {
+        writes++;
+        cache.remove(key(clazz, id));
+    }
+
+    private static String key(final Class<?> clazz, final String id) {
+        return clazz.getName().concat(":").concat(id);
+    }
+
+    @AllArgsConstructor
+    private static final class Entry {
+        private final Object object;
+        private final long expiresAt;
+    }
+}
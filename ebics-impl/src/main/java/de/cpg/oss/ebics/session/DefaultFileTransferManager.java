@@ -4,29 +4,52 @@ import de.cpg.oss.ebics.api.*;
 import de.cpg.oss.ebics.utils.CryptoUtil;
 import de.cpg.oss.ebics.utils.IOUtil;
 import de.cpg.oss.ebics.utils.ZipUtil;
-import javaslang.collection.Stream;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Enumeration;
 import java.util.UUID;
+import java.util.zip.Deflater;
 
 public final class DefaultFileTransferManager implements FileTransferManager {
 
     private final PersistenceProvider persistenceProvider;
+    private final int compressionLevel;
 
     public DefaultFileTransferManager(final PersistenceProvider persistenceProvider) {
+        this(persistenceProvider, Deflater.BEST_COMPRESSION);
+    }
+
+    /**
+     * @param persistenceProvider the provider storing transfers and their segments
+     * @param compressionLevel    the zlib compression level of uploaded order data
+     */
+    public DefaultFileTransferManager(final PersistenceProvider persistenceProvider, final int compressionLevel) {
         this.persistenceProvider = persistenceProvider;
+        this.compressionLevel = compressionLevel;
     }
 
+    /**
+     * All segments are saved through a single {@link PersistenceProvider#saveAll(Class, PersistenceProvider.Producer)},
+     * so a transactional persistence provider stores either all of them or none. If preparing or saving the transfer
+     * fails nonetheless, the segments already saved are deleted again, so no segments are left behind without a
+     * transfer referencing them.
+     */
     @Override
     public FileTransfer createUploadTransaction(final OrderType orderType,
                                                 final InputStream inputStream) {
-        return save(createUploadTransfer(orderType, inputStream, UUID.randomUUID(), CryptoUtil.generateNonce()));
+        final SegmentOutputStream segments = new SegmentOutputStream(UUID.randomUUID());
+        try {
+            return save(createUploadTransfer(orderType, inputStream, segments, CryptoUtil.generateNonce()));
+        } catch (final RuntimeException e) {
+            segments.deleteSaved(e);
+            throw e;
+        }
     }
 
     @Override
@@ -37,7 +60,7 @@ public final class DefaultFileTransferManager implements FileTransferManager {
         return save(FileTransfer.builder()
                 .orderType(orderType)
                 .segmentNumber(1)
-                .segmentIds(Stream.range(0, numSegments).map(i -> UUID.randomUUID()).toJavaList())
+                .numSegments(numSegments)
                 .nonce(nonce)
                 .transferId(UUID.randomUUID())
                 .transactionId(transactionId)
@@ -60,6 +83,11 @@ public final class DefaultFileTransferManager implements FileTransferManager {
         return delete(fileTransfer);
     }
 
+    @Override
+    public boolean finalizeDownloadTransaction(final FileTransfer fileTransfer) {
+        return delete(fileTransfer);
+    }
+
     @Override
     public FileTransfer save(final FileTransfer fileTransfer) {
         try {
@@ -75,7 +103,7 @@ public final class DefaultFileTransferManager implements FileTransferManager {
             return persistenceProvider.save(
                     FileTransferSegment.class,
                     FileTransferSegment.valueOf(
-                            fileTransfer.getSegmentIds().get(fileTransfer.getSegmentNumber() - 1),
+                            fileTransfer.getSegmentId(fileTransfer.getSegmentNumber()),
                             content));
         } catch (final IOException e) {
             throw new RuntimeException(e);
@@ -85,66 +113,159 @@ public final class DefaultFileTransferManager implements FileTransferManager {
     @Override
     public FileTransferSegment loadSegment(final FileTransfer fileTransfer) {
         try {
-            return persistenceProvider.load(FileTransferSegment.class, fileTransfer.getSegmentIds().get(fileTransfer.getSegmentNumber() - 1).toString());
+            return persistenceProvider.load(FileTransferSegment.class, fileTransfer.getSegmentId(fileTransfer.getSegmentNumber()).toString());
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Digests, compresses and encrypts the input in a single pass. The encrypted output is cut into segments, each
+     * of which is handed to the persistence provider as soon as it is full, so at most one segment is held in memory
+     * besides what the persistence provider itself buffers, e.g. a JDBC batch.
+     * <p>
+     * <p>The digest is the one the A005/A006 electronic signature is computed over, so the upload initialisation
+     * only needs to sign it and never reads the order data again.
+     */
     private FileTransfer createUploadTransfer(final OrderType orderType,
                                               final InputStream inputStream,
-                                              final UUID transferId,
+                                              final SegmentOutputStream segments,
                                               final byte[] nonce) {
         try {
-            final MessageDigest digester = MessageDigest.getInstance(CryptoUtil.EBICS_DIGEST_ALGORITHM);
-            final InputStream compressedAndEncrypted = CryptoUtil.encryptAES(
-                    ZipUtil.compress(CryptoUtil.digest(inputStream, digester)),
-                    nonce);
-            final List<UUID> segmentIds = new ArrayList<>();
-
-            final byte[] block = new byte[BLOCK_SIZE];
-            int bytesRead = 0;
-            do {
-                int blockBytesRead = 0;
-                while (blockBytesRead < block.length) {
-                    bytesRead = compressedAndEncrypted.read(block, blockBytesRead, block.length - blockBytesRead);
-                    if (bytesRead == -1) {
-                        break;
-                    }
-                    blockBytesRead += bytesRead;
+            final MessageDigest digester = CryptoUtil.newDigest();
+
+            persistenceProvider.saveAll(FileTransferSegment.class, sink -> {
+                try (final OutputStream compressedAndEncrypted = ZipUtil.compress(
+                        CryptoUtil.encryptAES(segments.writingTo(sink), nonce), compressionLevel)) {
+                    IOUtil.copy(CryptoUtil.digest(inputStream, digester), compressedAndEncrypted);
                 }
-                segmentIds.add(persistenceProvider.save(
-                        FileTransferSegment.class,
-                        FileTransferSegment.create(block, blockBytesRead))
-                        .getSegmentId());
-            } while (bytesRead != -1);
+            });
 
             return FileTransfer.builder()
                     .orderType(orderType)
-                    .segmentIds(segmentIds)
+                    .numSegments(segments.numSegments)
                     .digest(digester.digest())
                     .nonce(nonce)
-                    .transferId(transferId)
+                    .transferId(segments.transferId)
                     .build();
         } catch (GeneralSecurityException | IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * The order data of all segments forms a single compressed and AES-CBC encrypted stream, so the segments are
+     * concatenated before decryption. They are loaded one at a time, keeping the memory footprint bounded
+     * regardless of the size of the download.
+     */
     private void writeOutput(final FileTransfer fileTransfer,
                              final OutputStream outputStream) throws IOException {
-        for (final UUID segmentId : fileTransfer.getSegmentIds()) {
-            outputStream.write(IOUtil.read(ZipUtil.uncompress(CryptoUtil.decryptAES(
-                    IOUtil.wrap(persistenceProvider.load(FileTransferSegment.class, segmentId.toString()).getContent()),
-                    fileTransfer.getNonce()))));
+        try (final InputStream orderData = ZipUtil.uncompress(CryptoUtil.decryptAES(
+                segmentsInput(fileTransfer), fileTransfer.getNonce()))) {
+            IOUtil.copy(orderData, outputStream);
+        }
+    }
+
+    private InputStream segmentsInput(final FileTransfer fileTransfer) {
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            private int segmentNumber;
+
+            @Override
+            public boolean hasMoreElements() {
+                return segmentNumber < fileTransfer.getNumSegments();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return IOUtil.wrap(persistenceProvider.load(
+                            FileTransferSegment.class, fileTransfer.getSegmentId(++segmentNumber).toString())
+                            .getContent());
+                } catch (final IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Fills segment sized buffers and saves each full buffer as a segment without copying it. Only the last, usually
+     * partial segment is trimmed to its actual length.
+     */
+    private final class SegmentOutputStream extends OutputStream {
+
+        private final UUID transferId;
+        private PersistenceProvider.Sink<FileTransferSegment> sink;
+        private int numSegments;
+        private byte[] segment = new byte[BLOCK_SIZE];
+        private int count;
+
+        private SegmentOutputStream(final UUID transferId) {
+            this.transferId = transferId;
+        }
+
+        private SegmentOutputStream writingTo(final PersistenceProvider.Sink<FileTransferSegment> sink) {
+            this.sink = sink;
+            return this;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (count == segment.length) {
+                saveSegment(segment);
+            }
+            segment[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            int written = 0;
+            while (written < len) {
+                if (count == segment.length) {
+                    saveSegment(segment);
+                }
+                final int chunk = Math.min(len - written, segment.length - count);
+                System.arraycopy(b, off + written, segment, count, chunk);
+                count += chunk;
+                written += chunk;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (count > 0 || numSegments == 0) {
+                saveSegment(count == segment.length ? segment : Arrays.copyOf(segment, count));
+            }
+        }
+
+        private void saveSegment(final byte[] content) throws IOException {
+            sink.save(FileTransferSegment.valueOf(FileTransfer.segmentId(transferId, ++numSegments), content));
+            segment = new byte[BLOCK_SIZE];
+            count = 0;
+        }
+
+        /**
+         * Deletes the segments passed on so far after the upload preparation failed, unless the persistence provider
+         * has already rolled them back. Errors doing so are added to the original one.
+         */
+        private void deleteSaved(final RuntimeException failure) {
+            for (int segmentNumber = 1; segmentNumber <= numSegments; segmentNumber++) {
+                try {
+                    persistenceProvider.delete(FileTransferSegment.class,
+                            FileTransfer.segmentId(transferId, segmentNumber).toString());
+                } catch (final IOException | RuntimeException e) {
+                    failure.addSuppressed(e);
+                }
+            }
         }
     }
 
     private boolean delete(final FileTransfer fileTransfer) {
         try {
             if (persistenceProvider.delete(fileTransfer)) {
-                for (final UUID segmentId : fileTransfer.getSegmentIds()) {
-                    persistenceProvider.delete(FileTransferSegment.class, segmentId.toString());
+                for (int segmentNumber = 1; segmentNumber <= fileTransfer.getNumSegments(); segmentNumber++) {
+                    persistenceProvider.delete(FileTransferSegment.class,
+                            fileTransfer.getSegmentId(segmentNumber).toString());
                 }
                 return true;
             }
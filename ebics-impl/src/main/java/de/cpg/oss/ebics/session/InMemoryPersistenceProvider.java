@@ -1,42 +1,88 @@
 package de.cpg.oss.ebics.session;
 
+import de.cpg.oss.ebics.api.FileTransfer;
+import de.cpg.oss.ebics.api.FileTransferSegment;
 import de.cpg.oss.ebics.api.Identifiable;
 import de.cpg.oss.ebics.api.PersistenceProvider;
-import lombok.AccessLevel;
-import lombok.NoArgsConstructor;
 
 import java.io.IOException;
 import java.text.MessageFormat;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-@NoArgsConstructor(access = AccessLevel.PRIVATE)
+/**
+ * Keeps all objects in memory, in a separate concurrent map per type, so it can be shared by concurrent sessions
+ * and objects of different types may have the same ID.
+ * <p>
+ * <p>The number of objects per type can be bounded, in which case saving a new object into a full map fails.
+ * Deleting a file transfer also drops all of its segments, so segments of finished transfers never pile up.
+ */
 public final class InMemoryPersistenceProvider implements PersistenceProvider {
 
     public static final PersistenceProvider INSTANCE = new InMemoryPersistenceProvider();
 
-    private final Map<String, Object> objectMap = new HashMap<>();
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, Object>> objectMaps = new ConcurrentHashMap<>();
+    private final int maxObjectsPerType;
+
+    public InMemoryPersistenceProvider() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxObjectsPerType the maximum number of objects held for each type
+     */
+    public InMemoryPersistenceProvider(final int maxObjectsPerType) {
+        this.maxObjectsPerType = maxObjectsPerType;
+    }
 
     @Override
     public <T extends Identifiable> T save(final Class<T> clazz, final T object) throws IOException {
-        objectMap.put(object.getId(), object);
+        final ConcurrentMap<String, Object> objectMap = objectMap(clazz);
+        if (Integer.MAX_VALUE == maxObjectsPerType) {
+            objectMap.put(object.getId(), object);
+            return object;
+        }
+        synchronized (objectMap) {
+            if (objectMap.size() >= maxObjectsPerType && !objectMap.containsKey(object.getId())) {
+                throw new IOException(MessageFormat.format("Cannot store more than {0} objects of type {1}",
+                        maxObjectsPerType, clazz.getSimpleName()));
+            }
+            objectMap.put(object.getId(), object);
+        }
         return object;
     }
 
     @Override
     public <T extends Identifiable> T load(final Class<T> clazz, final String id) throws IOException {
-        final Optional<T> object = Optional.ofNullable((T) objectMap.get(id));
-        return object.orElseThrow(() -> new IOException(MessageFormat.format("Object with ID {0} not found", id)));
+        final Optional<T> object = Optional.ofNullable(objectMap(clazz).get(id)).map(clazz::cast);
+        return object.orElseThrow(() -> new IOException(MessageFormat.format("{0} with ID {1} not found",
+                clazz.getSimpleName(), id)));
     }
 
     @Override
     public boolean delete(final Identifiable identifiable) throws IOException {
-        return objectMap.remove(identifiable.getId()) != null;
+        return delete(identifiable.getClass(), identifiable.getId());
     }
 
     @Override
     public <T extends Identifiable> boolean delete(final Class<T> clazz, final String id) throws IOException {
-        return objectMap.remove(id) != null;
+        final Object removed = objectMap(clazz).remove(id);
+        if (removed instanceof FileTransfer) {
+            deleteSegments((FileTransfer) removed);
+        }
+        return removed != null;
+    }
+
+    private void deleteSegments(final FileTransfer fileTransfer) {
+        final ConcurrentMap<String, Object> segments = objectMap(FileTransferSegment.class);
+        for (int segmentNumber = 1; segmentNumber <= fileTransfer.getNumSegments(); segmentNumber++) {
+            segments.remove(fileTransfer.getSegmentId(segmentNumber).toString());
+        }
+    }
+
+    private ConcurrentMap<String, Object> objectMap(final Class<?> clazz) {
+        final ConcurrentMap<String, Object> objectMap = objectMaps.get(clazz);
+        return null != objectMap ? objectMap : objectMaps.computeIfAbsent(clazz, c -> new ConcurrentHashMap<>());
     }
 }
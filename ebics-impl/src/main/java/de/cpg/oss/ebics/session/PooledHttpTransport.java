@@ -0,0 +1,141 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.api.EbicsBank;
+import de.cpg.oss.ebics.api.EbicsTransport;
+import lombok.Builder;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP transport keeping a pool of persistent connections per bank.
+ * <p>
+ * <p>All connections share one {@link SSLContext}, so TLS sessions are resumed even when a new connection has to be
+ * opened. Connections are kept alive for as long as the bank permits, but never longer than the configured
+ * keep-alive duration. A multi-segment transfer therefore pays the TCP and TLS handshake only once.
+ */
+public final class PooledHttpTransport implements EbicsTransport, Closeable {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_BANK = 4;
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_SOCKET_TIMEOUT = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofMinutes(1);
+
+    static final ContentType CONTENT_TYPE = ContentType.APPLICATION_XML.withCharset(StandardCharsets.UTF_8);
+
+    private final CloseableHttpClient httpClient;
+
+    public PooledHttpTransport() {
+        this(null, null, null, null, null, null);
+    }
+
+    /**
+     * @param maxConnections        the maximum number of connections in total
+     * @param maxConnectionsPerBank the maximum number of concurrent connections to a single bank host
+     * @param connectTimeout        the timeout for establishing a connection
+     * @param socketTimeout         the maximum period of inactivity while waiting for response data
+     * @param keepAlive             the maximum time an idle connection is kept for reuse
+     * @param sslContext            the SSL context to create TLS connections with, the system default if omitted
+     */
+    @Builder
+    private PooledHttpTransport(final Integer maxConnections,
+                                final Integer maxConnectionsPerBank,
+                                final Duration connectTimeout,
+                                final Duration socketTimeout,
+                                final Duration keepAlive,
+                                final SSLContext sslContext) {
+        final Duration maxKeepAlive = Optional.ofNullable(keepAlive).orElse(DEFAULT_KEEP_ALIVE);
+
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", new SSLConnectionSocketFactory(
+                                Optional.ofNullable(sslContext).orElseGet(SSLContexts::createSystemDefault)))
+                        .build());
+        connectionManager.setMaxTotal(Optional.ofNullable(maxConnections).orElse(DEFAULT_MAX_CONNECTIONS));
+        connectionManager.setDefaultMaxPerRoute(
+                Optional.ofNullable(maxConnectionsPerBank).orElse(DEFAULT_MAX_CONNECTIONS_PER_BANK));
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy(maxKeepAlive))
+                .setDefaultRequestConfig(requestConfig(connectTimeout, socketTimeout))
+                .evictExpiredConnections()
+                .evictIdleConnections(maxKeepAlive.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public InputStream send(final EbicsBank bank, final byte[] request) throws IOException {
+        final HttpPost httpPost = new HttpPost(bank.getUri());
+        httpPost.setEntity(new ByteArrayEntity(request, CONTENT_TYPE));
+
+        final CloseableHttpResponse httpResponse = httpClient.execute(httpPost);
+        final int statusCode = httpResponse.getStatusLine().getStatusCode();
+        if (statusCode != HttpStatus.SC_OK) {
+            try {
+                EntityUtils.consume(httpResponse.getEntity());
+            } finally {
+                httpResponse.close();
+            }
+            throw unexpectedStatus(statusCode);
+        }
+        return httpResponse.getEntity().getContent();
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    static ConnectionKeepAliveStrategy keepAliveStrategy(final Duration maxKeepAlive) {
+        return (response, context) -> {
+            final long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(
+                    response, context);
+            return serverKeepAlive > 0
+                    ? Math.min(serverKeepAlive, maxKeepAlive.toMillis())
+                    : maxKeepAlive.toMillis();
+        };
+    }
+
+    static RequestConfig requestConfig(final Duration connectTimeout, final Duration socketTimeout) {
+        return RequestConfig.custom()
+                .setConnectTimeout(toMillis(connectTimeout, DEFAULT_CONNECT_TIMEOUT))
+                .setSocketTimeout(toMillis(socketTimeout, DEFAULT_SOCKET_TIMEOUT))
+                .setConnectionRequestTimeout(toMillis(connectTimeout, DEFAULT_CONNECT_TIMEOUT))
+                .build();
+    }
+
+    static IOException unexpectedStatus(final int statusCode) {
+        return new IOException(MessageFormat.format("Got HTTP return code {0}", statusCode));
+    }
+
+    private static int toMillis(final Duration duration, final Duration defaultDuration) {
+        return (int) Optional.ofNullable(duration).orElse(defaultDuration).toMillis();
+    }
+}
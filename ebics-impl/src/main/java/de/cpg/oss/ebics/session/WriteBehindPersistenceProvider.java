@@ -0,0 +1,153 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.api.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Defers the saves of session state to the next {@link #flush()}, which writes them to the wrapped provider as a
+ * single unit of work.
+ * <p>
+ * <p>Repeated saves of the same object are coalesced, so only its latest state is written. Loads see deferred
+ * saves. Objects of any other type, like file transfers and their segments, are passed straight through, since
+ * resuming a transfer relies on them being stored. {@link de.cpg.oss.ebics.client.EbicsClientImpl#save} flushes,
+ * state not saved through the client is lost if the application stops without flushing.
+ * <p>
+ * <p>Only the deferred objects are guarded by a lock, the wrapped provider is always called outside of it. Flushes
+ * and deletes are serialized with each other, so a delete is never overtaken by a flush writing the deleted object.
+ */
+@Slf4j
+public final class WriteBehindPersistenceProvider implements PersistenceProvider {
+
+    private final PersistenceProvider delegate;
+    private final Set<Class<?>> deferredTypes;
+    private final Object flushLock = new Object();
+
+    // Guarded by this
+    private UnitOfWork pending = new UnitOfWork();
+    private UnitOfWork flushing = new UnitOfWork();
+
+    /**
+     * Defers the saves of users, partners and banks.
+     */
+    public WriteBehindPersistenceProvider(final PersistenceProvider delegate) {
+        this(delegate, EbicsUser.class, EbicsPartner.class, EbicsBank.class);
+    }
+
+    public WriteBehindPersistenceProvider(final PersistenceProvider delegate, final Class<?>... deferredTypes) {
+        this.delegate = delegate;
+        this.deferredTypes = new HashSet<>(Arrays.asList(deferredTypes));
+    }
+
+    @Override
+    public <T extends Identifiable> T save(final Class<T> clazz, final T object) throws IOException {
+        if (!deferredTypes.contains(clazz)) {
+            return delegate.save(clazz, object);
+        }
+        synchronized (this) {
+            pending.save(clazz, object);
+        }
+        return object;
+    }
+
+    @Override
+    public <T extends Identifiable> void saveAll(final Class<T> clazz, final Producer<T> producer) throws IOException {
+        if (!deferredTypes.contains(clazz)) {
+            delegate.saveAll(clazz, producer);
+            return;
+        }
+        producer.produce(object -> save(clazz, object));
+    }
+
+    @Override
+    public void saveAll(final UnitOfWork unitOfWork) throws IOException {
+        unitOfWork.saveEach(this);
+    }
+
+    /**
+     * Writes the deferred saves. If that fails, they stay deferred until the next flush, unless they have been
+     * saved again in the meantime.
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            final UnitOfWork flushed;
+            synchronized (this) {
+                flushed = pending;
+                flushing = pending;
+                pending = new UnitOfWork();
+            }
+            try {
+                if (!flushed.isEmpty()) {
+                    log.debug("Writing {} deferred objects", flushed.size());
+                    delegate.saveAll(flushed);
+                }
+            } catch (final IOException | RuntimeException e) {
+                synchronized (this) {
+                    pending = flushed.saveAll(pending);
+                }
+                throw e;
+            } finally {
+                synchronized (this) {
+                    flushing = new UnitOfWork();
+                }
+            }
+        }
+        delegate.flush();
+    }
+
+    @Override
+    public <T extends Identifiable> T load(final Class<T> clazz, final String id) throws IOException {
+        if (deferredTypes.contains(clazz)) {
+            final Optional<T> deferred;
+            synchronized (this) {
+                deferred = Optional.ofNullable(pending.find(clazz, id).orElseGet(() ->
+                        flushing.find(clazz, id).orElse(null)));
+            }
+            if (deferred.isPresent()) {
+                return deferred.get();
+            }
+        }
+        return delegate.load(clazz, id);
+    }
+
+    @Override
+    public boolean delete(final Identifiable identifiable) throws IOException {
+        return delete(identifiable.getClass(), identifiable.getId());
+    }
+
+    /**
+     * Drops a deferred save of the object and deletes it from the wrapped provider, unless it has never been
+     * written there.
+     */
+    @Override
+    public <T extends Identifiable> boolean delete(final Class<T> clazz, final String id) throws IOException {
+        synchronized (flushLock) {
+            final boolean deferred;
+            synchronized (this) {
+                deferred = pending.remove(clazz, id);
+            }
+            if (deferred && !isStored(clazz, id)) {
+                return true;
+            }
+            return delegate.delete(clazz, id) || deferred;
+        }
+    }
+
+    /**
+     * Every provider fails to load an object it does not hold with an {@link IOException}.
+     */
+    private <T extends Identifiable> boolean isStored(final Class<T> clazz, final String id) {
+        try {
+            delegate.load(clazz, id);
+            return true;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+}
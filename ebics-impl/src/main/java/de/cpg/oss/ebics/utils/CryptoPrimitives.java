@@ -0,0 +1,77 @@
+package de.cpg.oss.ebics.utils;
+
+import javax.crypto.Cipher;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-thread caches of JCA primitives, keyed by algorithm and provider.
+ * <p>
+ * <p>Looking up an algorithm, in particular at a named provider, is expensive compared to initializing an existing
+ * instance with another key. The instances are neither thread-safe nor reentrant, so callers must initialize them
+ * for every use and finish with them before returning. They must never be handed to a stream or any other object
+ * outliving the call.
+ */
+abstract class CryptoPrimitives {
+
+    private static final ThreadLocal<Map<String, Cipher>> CIPHERS = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<String, Signature>> SIGNATURES = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<String, MessageDigest>> DIGESTS = ThreadLocal.withInitial(HashMap::new);
+
+    static Cipher cipher(final String algorithm) throws GeneralSecurityException {
+        final Map<String, Cipher> ciphers = CIPHERS.get();
+        Cipher cipher = ciphers.get(algorithm);
+        if (null == cipher) {
+            cipher = Cipher.getInstance(algorithm);
+            ciphers.put(algorithm, cipher);
+        }
+        return cipher;
+    }
+
+    static Signature signature(final String algorithm) throws GeneralSecurityException {
+        return signature(algorithm, null);
+    }
+
+    static Signature signature(final String algorithm, final String provider) throws GeneralSecurityException {
+        final Map<String, Signature> signatures = SIGNATURES.get();
+        final String key = null == provider ? algorithm : algorithm.concat("@").concat(provider);
+        Signature signature = signatures.get(key);
+        if (null == signature) {
+            signature = null == provider
+                    ? Signature.getInstance(algorithm)
+                    : Signature.getInstance(algorithm, provider);
+            signatures.put(key, signature);
+        }
+        return signature;
+    }
+
+    /**
+     * @return a digest of the given algorithm, reset to its initial state
+     */
+    static MessageDigest messageDigest(final String algorithm) throws GeneralSecurityException {
+        final Map<String, MessageDigest> digests = DIGESTS.get();
+        MessageDigest digest = digests.get(algorithm);
+        if (null == digest) {
+            digest = MessageDigest.getInstance(algorithm);
+            digests.put(algorithm, digest);
+        } else {
+            digest.reset();
+        }
+        return digest;
+    }
+
+    /**
+     * @return a new digest of the given algorithm, cloned from the cached one if it supports that, which the caller
+     * owns and may hand to a stream
+     */
+    static MessageDigest newMessageDigest(final String algorithm) throws GeneralSecurityException {
+        try {
+            return (MessageDigest) messageDigest(algorithm).clone();
+        } catch (final CloneNotSupportedException e) {
+            return MessageDigest.getInstance(algorithm);
+        }
+    }
+}
@@ -12,8 +12,11 @@ import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.*;
 
 
@@ -29,6 +32,15 @@ public abstract class CryptoUtil {
     private static final String EBICS_AES_ALGORITHM = "AES/CBC/ISO10126Padding";
     public static final String EBICS_DIGEST_ALGORITHM = "SHA-256";
 
+    private static final IvParameterSpec AES_IV = new IvParameterSpec(new byte[16]);
+    private static final ObjectPool<Cipher> AES_CIPHERS = new ObjectPool<>(() -> {
+        try {
+            return Cipher.getInstance(EBICS_AES_ALGORITHM);
+        } catch (final GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
     /**
      * Generates a random nonce.
      * <p>
@@ -41,11 +53,13 @@ public abstract class CryptoUtil {
      * <p>Transaction IDs are generated by cryptographic pseudo-random number generators (PRNG)
      * that have been initialized with a real random number (seed). The entropy of the seed should
      * be at least 100 bits.
+     * <p>
+     * <p>The nonce is taken from the {@link SharedSecureRandom}, which is seeded with 256 bits.
      *
      * @return a random nonce.
      */
     public static byte[] generateNonce() {
-        return secureRandom().generateSeed(16);
+        return SharedSecureRandom.get().nextBytes(16);
     }
 
     /**
@@ -80,6 +94,31 @@ public abstract class CryptoUtil {
         return encryptOrDecryptAES(Cipher.ENCRYPT_MODE, inputStream, aesKey);
     }
 
+    /**
+     * Encrypts everything written to the returned stream like {@link #encryptAES(InputStream, byte[])} and passes
+     * the result on to the given output stream. The final block is written when the returned stream is closed.
+     *
+     * @param outputStream the stream receiving the encrypted data
+     * @param aesKey       the AES symmetric key
+     * @return the stream to write the data to be encrypted to
+     */
+    public static OutputStream encryptAES(final OutputStream outputStream, final byte[] aesKey) {
+        return new AesOutputStream(outputStream, aesCipher(Cipher.ENCRYPT_MODE, aesKey));
+    }
+
+    /**
+     * Decrypts everything written to the returned stream like {@link #decryptAES(InputStream, byte[])} and passes
+     * the result on to the given output stream. The padding is removed when the returned stream is closed, which
+     * fails if the data written was incomplete.
+     *
+     * @param outputStream the stream receiving the decrypted data
+     * @param aesKey       the AES symmetric key
+     * @return the stream to write the encrypted data to
+     */
+    public static OutputStream decryptAES(final OutputStream outputStream, final byte[] aesKey) {
+        return new AesOutputStream(outputStream, aesCipher(Cipher.DECRYPT_MODE, aesKey));
+    }
+
     /**
      * Decrypts the <code>encryptedData</code> using the decoded transaction key.
      * <p>
@@ -112,11 +151,35 @@ public abstract class CryptoUtil {
      * @return the encrypted or decrypted data.
      */
     private static InputStream encryptOrDecryptAES(final int mode, final InputStream inputStream, final byte[] aesKey) {
+        final Cipher cipher = aesCipher(mode, aesKey);
+        return new CipherInputStream(inputStream, cipher) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    AES_CIPHERS.release(cipher);
+                }
+            }
+        };
+    }
+
+    /**
+     * Borrows an AES cipher from the pool and initializes it with the given key. As the cipher lives as long as the
+     * stream using it, it is only given back to the pool once that stream is closed. Streams which are never closed
+     * simply leave their cipher to the garbage collector.
+     */
+    private static Cipher aesCipher(final int mode, final byte[] aesKey) {
+        final Cipher cipher = AES_CIPHERS.borrow();
         try {
-            final IvParameterSpec ivParameterSpec = new IvParameterSpec(new byte[16]);
-            final Cipher cipher = Cipher.getInstance(EBICS_AES_ALGORITHM);
-            cipher.init(mode, new SecretKeySpec(aesKey, "AES"), ivParameterSpec);
-            return new CipherInputStream(inputStream, cipher);
+            cipher.init(mode, new SecretKeySpec(aesKey, "AES"), AES_IV);
+            return cipher;
         } catch (final GeneralSecurityException e) {
             throw new RuntimeException(e);
         }
@@ -128,7 +191,7 @@ public abstract class CryptoUtil {
      * @return the password
      */
     public static String generatePassword() {
-        final String pwd = Base64.encodeBase64String(secureRandom().generateSeed(5));
+        final String pwd = Base64.encodeBase64String(SharedSecureRandom.get().nextBytes(5));
         return pwd.substring(0, pwd.length() - 2);
     }
 
@@ -165,7 +228,7 @@ public abstract class CryptoUtil {
      * </ol>
      */
     static byte[] authenticate(final byte[] message, final PrivateKey authenticationKey) throws GeneralSecurityException {
-        final Signature signature = Signature.getInstance("SHA256withRSA");
+        final Signature signature = CryptoPrimitives.signature("SHA256withRSA");
         signature.initSign(authenticationKey);
         signature.update(message);
         return signature.sign();
@@ -216,11 +279,19 @@ public abstract class CryptoUtil {
      * algorithm. This signature is then put in a UserSignature XML object that will be sent to the EBICS server.
      */
     public static byte[] signMessage(final InputStream message, final EbicsSignatureKey signatureKey) throws GeneralSecurityException, IOException {
-        final MessageDigest digester = MessageDigest.getInstance(EBICS_DIGEST_ALGORITHM);
+        final MessageDigest digester = CryptoPrimitives.messageDigest(EBICS_DIGEST_ALGORITHM);
         IOUtil.read(digest(message, digester));
         return signHash(digester.digest(), signatureKey);
     }
 
+    /**
+     * @return a new {@value #EBICS_DIGEST_ALGORITHM} digest, e.g. for {@link #digest(InputStream, MessageDigest)},
+     * created without looking up the algorithm again
+     */
+    public static MessageDigest newDigest() throws GeneralSecurityException {
+        return CryptoPrimitives.newMessageDigest(EBICS_DIGEST_ALGORITHM);
+    }
+
     public static InputStream digest(final InputStream inputStream, final MessageDigest digester) {
         return new DigestInputStream(removeOSSpecificChars(inputStream), digester);
     }
@@ -236,7 +307,7 @@ public abstract class CryptoUtil {
                  */
                 final AlgorithmIdentifier sha256Aid = new AlgorithmIdentifier(NISTObjectIdentifiers.id_sha256, null);
                 final DigestInfo digestInfo = new DigestInfo(sha256Aid, sha256Hash);
-                signature = Signature.getInstance("RSA");
+                signature = CryptoPrimitives.signature("RSA");
                 signature.initSign(signatureKey.getPrivateKey());
                 signature.update(digestInfo.toASN1Primitive().getEncoded());
                 return signature.sign();
@@ -246,7 +317,7 @@ public abstract class CryptoUtil {
                 /* According to EBICS V2.5 spec the SHA-256 hash is hashed via SHA-256 again if signature version A006
                  * is used
                  */
-                signature = Signature.getInstance("SHA256withRSAandMGF1", BouncyCastleProvider.PROVIDER_NAME);
+                signature = CryptoPrimitives.signature("SHA256withRSAandMGF1", BouncyCastleProvider.PROVIDER_NAME);
                 signature.initSign(signatureKey.getPrivateKey());
                 signature.update(sha256Hash);
                 return signature.sign();
@@ -275,22 +346,130 @@ public abstract class CryptoUtil {
     }
 
     private static InputStream removeOSSpecificChars(final InputStream inputStream) {
-        return new InputStream() {
-            @Override
-            public int read() throws IOException {
-                do {
-                    final byte next = (byte) inputStream.read();
-                    if (!isOsSpecificChar(next)) {
-                        return next;
-                    }
-                } while (true);
+        return new OsSpecificCharFilterInputStream(inputStream);
+    }
+
+    /**
+     * Passes everything written through a pooled AES cipher. Unlike {@link javax.crypto.CipherOutputStream}, a failing final block
+     * is reported when the stream is closed rather than silently dropped.
+     */
+    private static final class AesOutputStream extends FilterOutputStream {
+
+        private final Cipher cipher;
+        private boolean closed;
+
+        private AesOutputStream(final OutputStream out, final Cipher cipher) {
+            super(out);
+            this.cipher = cipher;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            final byte[] output = cipher.update(b, off, len);
+            if (null != output) {
+                out.write(output);
             }
-        };
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (final OutputStream output = out) {
+                output.write(cipher.doFinal());
+            } catch (final GeneralSecurityException e) {
+                throw new IOException(e);
+            } finally {
+                AES_CIPHERS.release(cipher);
+            }
+        }
+    }
+
+    /**
+     * Drops all OS specific characters from the underlying stream. Bulk reads filter the buffer in place, compacting
+     * the remaining bytes in a single branch-free pass.
+     */
+    private static final class OsSpecificCharFilterInputStream extends FilterInputStream {
+
+        private OsSpecificCharFilterInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int next;
+            do {
+                next = in.read();
+            } while (next != -1 && isOsSpecificChar((byte) next));
+            return next;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int kept;
+            do {
+                final int n = in.read(b, off, len);
+                if (n == -1) {
+                    return -1;
+                }
+                kept = off;
+                for (int i = off; i < off + n; i++) {
+                    final byte octet = b[i];
+                    b[kept] = octet;
+                    kept += isOsSpecificChar(octet) ? 0 : 1;
+                }
+            } while (kept == off);
+            return kept - off;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            final byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                final int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read == -1) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return 0;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Leaves the underlying stream open, it belongs to the caller.
+         */
+        @Override
+        public void close() {
+        }
     }
 
     public static byte[] encryptRSA(final byte[] input, final PublicKey encryptionKey) {
         try {
-            final Cipher cipher = Cipher.getInstance(EBICS_RSA_ALGORITHM);
+            final Cipher cipher = CryptoPrimitives.cipher(EBICS_RSA_ALGORITHM);
             cipher.init(Cipher.ENCRYPT_MODE, encryptionKey);
             return cipher.doFinal(input);
         } catch (final GeneralSecurityException e) {
@@ -300,19 +479,11 @@ public abstract class CryptoUtil {
 
     public static byte[] decryptRSA(final byte[] input, final PrivateKey privateKey) {
         try {
-            final Cipher cipher = Cipher.getInstance(EBICS_RSA_ALGORITHM);
+            final Cipher cipher = CryptoPrimitives.cipher(EBICS_RSA_ALGORITHM);
             cipher.init(Cipher.DECRYPT_MODE, privateKey);
             return cipher.doFinal(input);
         } catch (final GeneralSecurityException e) {
             throw new RuntimeException(e);
         }
     }
-
-    private static SecureRandom secureRandom() {
-        try {
-            return SecureRandom.getInstance("SHA1PRNG");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
-    }
 }
@@ -0,0 +1,37 @@
+package de.cpg.oss.ebics.utils;
+
+import de.cpg.oss.ebics.api.EbicsConfiguration;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the blocking work of asynchronous conversations, like parsing and decrypting responses, preparing
+ * segments and persisting sessions and transfers. None of it runs on the common fork join pool, which is meant for
+ * short computations only.
+ */
+public abstract class ExecutorUtil {
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    private static final Executor DEFAULT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "ebics-worker-" + THREAD_NUMBER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @return a shared pool of daemon threads, which are started on demand and ended when idle
+     */
+    public static Executor defaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+
+    /**
+     * @return the executor of the given configuration, or the {@link #defaultExecutor()} if it has none
+     */
+    public static Executor executorFor(final EbicsConfiguration configuration) {
+        return Optional.ofNullable(configuration.getExecutor()).orElse(DEFAULT_EXECUTOR);
+    }
+}
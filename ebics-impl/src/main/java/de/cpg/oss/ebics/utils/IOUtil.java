@@ -3,16 +3,26 @@ package de.cpg.oss.ebics.utils;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 @Slf4j
 public abstract class IOUtil {
 
+    /**
+     * Reads the given stream up to its end and closes it.
+     *
+     * @return all bytes read
+     */
     public static byte[] read(final InputStream is) {
         try {
-            try (final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            try (final InputStream input = is;
+                 final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
                 final byte[] b = new byte[4096];
                 int n;
-                while ((n = is.read(b)) != -1) {
+                while ((n = input.read(b)) != -1) {
                     output.write(b, 0, n);
                 }
                 return output.toByteArray();
@@ -22,6 +32,49 @@ public abstract class IOUtil {
         }
     }
 
+    /**
+     * Copies all bytes from the input to the output stream through a fixed size buffer.
+     *
+     * @return the number of bytes copied
+     */
+    public static long copy(final InputStream is, final OutputStream os) throws IOException {
+        final byte[] b = new byte[8192];
+        long count = 0;
+        int n;
+        while ((n = is.read(b)) != -1) {
+            os.write(b, 0, n);
+            count += n;
+        }
+        return count;
+    }
+
+    /**
+     * Opens the given file for reading through memory mapped windows.
+     *
+     * @return a stream which has to be closed by the caller
+     * @see #newInputStream(FileChannel)
+     */
+    public static InputStream newInputStream(final Path path) throws IOException {
+        return newInputStream(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Reads the given channel from its current position through memory mapped windows, so that large files are read
+     * with the read-ahead of the operating system and without buffering them on the heap. The returned stream takes
+     * ownership of the channel and closes it when it is closed itself.
+     * <p>
+     * <p>If the JVM does not allow unmapping the windows when the stream is closed, the channel is read directly
+     * instead, as a file which stays mapped cannot be deleted on Windows.
+     *
+     * @return a stream which has to be closed by the caller
+     */
+    public static InputStream newInputStream(final FileChannel channel) throws IOException {
+        if (MappedFileInputStream.isUnmapSupported()) {
+            return new MappedFileInputStream(channel);
+        }
+        return new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+    }
+
     public static InputStream wrap(final byte[] data) {
         return new ByteArrayInputStream(data);
     }
@@ -58,7 +58,7 @@ public abstract class KeyUtil {
         final String hash = exponent.concat(" ").concat(modulus).toLowerCase();
 
         try {
-            return MessageDigest.getInstance(CryptoUtil.EBICS_DIGEST_ALGORITHM).digest(hash.getBytes("US-ASCII"));
+            return CryptoPrimitives.messageDigest(CryptoUtil.EBICS_DIGEST_ALGORITHM).digest(hash.getBytes("US-ASCII"));
         } catch (final GeneralSecurityException | UnsupportedEncodingException e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,148 @@
+package de.cpg.oss.ebics.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a file channel through memory mapped windows, from its current position to the end.
+ * <p>
+ * <p>Reads are served by copying straight out of the page cache, and the operating system reads ahead across the
+ * whole window, so there is neither a system call per read nor an intermediate buffer on the heap. Each window is
+ * unmapped as soon as it is exhausted or the stream is closed, so the file can be deleted right after closing the
+ * stream, even on Windows. This requires the JDK internal cleaner, see {@link #isUnmapSupported()}.
+ */
+@Slf4j
+final class MappedFileInputStream extends InputStream {
+
+    static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final Unmapper UNMAPPER = findUnmapper();
+
+    private final FileChannel channel;
+    private final int windowSize;
+    private final long size;
+    private long position;
+    private MappedByteBuffer window;
+
+    MappedFileInputStream(final FileChannel channel) throws IOException {
+        this(channel, WINDOW_SIZE);
+    }
+
+    MappedFileInputStream(final FileChannel channel, final int windowSize) throws IOException {
+        this.channel = channel;
+        this.windowSize = windowSize;
+        this.size = channel.size();
+        this.position = channel.position();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureWindow()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureWindow()) {
+            return -1;
+        }
+        final int n = Math.min(len, window.remaining());
+        window.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return null == window ? 0 : window.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            unmapWindow();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return <code>false</code> if mapped windows cannot be unmapped explicitly on this JVM, in which case they
+     * would stay mapped until they are garbage collected
+     */
+    static boolean isUnmapSupported() {
+        return null != UNMAPPER;
+    }
+
+    /**
+     * Maps the next window once the current one is exhausted.
+     *
+     * @return <code>false</code> if the end of the file has been reached
+     */
+    private boolean ensureWindow() throws IOException {
+        if (null != window && window.hasRemaining()) {
+            return true;
+        }
+        if (position >= size) {
+            return false;
+        }
+        unmapWindow();
+        final long length = Math.min(windowSize, size - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        position += length;
+        return true;
+    }
+
+    private void unmapWindow() {
+        final MappedByteBuffer buffer = window;
+        window = null;
+        if (null != buffer && null != UNMAPPER) {
+            try {
+                UNMAPPER.unmap(buffer);
+            } catch (final Throwable e) {
+                log.warn("Failed to unmap file window, it stays mapped until garbage collected", e);
+            }
+        }
+    }
+
+    /**
+     * Looks up the cleaner of direct buffers, through <code>sun.misc.Unsafe</code> since Java 9 and through
+     * <code>sun.nio.ch.DirectBuffer</code> before.
+     */
+    private static Unmapper findUnmapper() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            final Object unsafe = theUnsafe.get(null);
+            return buffer -> invokeCleaner.invoke(unsafe, buffer);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            log.trace("No Unsafe.invokeCleaner, trying DirectBuffer.cleaner", e);
+        }
+        try {
+            final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> clean.invoke(cleaner.invoke(buffer));
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            log.debug("Mapped files cannot be unmapped explicitly on this JVM", e);
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Unmapper {
+        void unmap(MappedByteBuffer buffer) throws ReflectiveOperationException;
+    }
+}
@@ -0,0 +1,39 @@
+package de.cpg.oss.ebics.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * A small bounded pool for instances that are expensive to create but must not be shared between threads
+ * (e.g. JAXB marshallers). Borrowing never blocks: if no idle instance is available a new one is created, and
+ * released instances exceeding the capacity are simply dropped.
+ */
+final class ObjectPool<T> {
+
+    static final int DEFAULT_CAPACITY = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final BlockingQueue<T> idle;
+    private final Supplier<T> factory;
+
+    ObjectPool(final Supplier<T> factory) {
+        this(DEFAULT_CAPACITY, factory);
+    }
+
+    ObjectPool(final int capacity, final Supplier<T> factory) {
+        this.idle = new ArrayBlockingQueue<>(capacity);
+        this.factory = factory;
+    }
+
+    T borrow() {
+        final T instance = idle.poll();
+        return null != instance ? instance : factory.get();
+    }
+
+    /**
+     * @return <code>false</code> if the pool is full and the instance has been dropped
+     */
+    boolean release(final T instance) {
+        return idle.offer(instance);
+    }
+}
@@ -0,0 +1,76 @@
+package de.cpg.oss.ebics.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The random number generator behind all nonces, transaction keys and passwords.
+ * <p>
+ * <p>A single generator is seeded with 256 bits from the non-blocking entropy source of the operating system and
+ * reseeded from it after a number of uses. Unlike {@link SecureRandom#generateSeed(int)}, which may wait for the
+ * blocking entropy pool, generating random bytes therefore never stalls request creation.
+ * <p>
+ * <p>The algorithm and the reseed interval can be set with the system properties {@value #ALGORITHM_PROPERTY}
+ * (default {@value #DEFAULT_ALGORITHM}) and {@value #RESEED_INTERVAL_PROPERTY} (default
+ * {@value #DEFAULT_RESEED_INTERVAL}, zero disables reseeding).
+ */
+@Slf4j
+final class SharedSecureRandom {
+
+    static final String ALGORITHM_PROPERTY = "ebics.client.random.algorithm";
+    static final String RESEED_INTERVAL_PROPERTY = "ebics.client.random.reseedInterval";
+    static final String DEFAULT_ALGORITHM = "SHA1PRNG";
+    static final int DEFAULT_RESEED_INTERVAL = 10_000;
+
+    private static final int SEED_LENGTH = 32;
+    private static final SharedSecureRandom INSTANCE = new SharedSecureRandom(
+            System.getProperty(ALGORITHM_PROPERTY, DEFAULT_ALGORITHM),
+            Integer.getInteger(RESEED_INTERVAL_PROPERTY, DEFAULT_RESEED_INTERVAL));
+
+    private final SecureRandom random;
+    private final SecureRandom seedSource;
+    private final int reseedInterval;
+    private final AtomicLong uses = new AtomicLong();
+
+    SharedSecureRandom(final String algorithm, final int reseedInterval) {
+        try {
+            this.random = SecureRandom.getInstance(algorithm);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        this.seedSource = seedSource();
+        this.reseedInterval = reseedInterval;
+        random.setSeed(seed());
+    }
+
+    static SharedSecureRandom get() {
+        return INSTANCE;
+    }
+
+    byte[] nextBytes(final int length) {
+        if (reseedInterval > 0 && uses.incrementAndGet() % reseedInterval == 0) {
+            random.setSeed(seed());
+        }
+        final byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private byte[] seed() {
+        final byte[] seed = new byte[SEED_LENGTH];
+        seedSource.nextBytes(seed);
+        return seed;
+    }
+
+    private static SecureRandom seedSource() {
+        try {
+            return SecureRandom.getInstance("NativePRNGNonBlocking");
+        } catch (final NoSuchAlgorithmException e) {
+            log.debug("No non-blocking native PRNG available, seeding from the platform default");
+            return new SecureRandom();
+        }
+    }
+}
@@ -5,6 +5,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.xml.security.c14n.CanonicalizationException;
 import org.apache.xml.security.c14n.Canonicalizer;
 import org.apache.xml.security.c14n.InvalidCanonicalizerException;
+import org.ebics.h000.EbicsHEVRequest;
+import org.ebics.h000.EbicsHEVResponse;
+import org.ebics.h004.*;
+import org.ebics.s001.OrderSignatureData;
+import org.ebics.s001.SignaturePubKeyInfo;
+import org.ebics.s001.SignaturePubKeyOrderData;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -20,10 +26,14 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlSchema;
 import javax.xml.crypto.dsig.CanonicalizationMethod;
 import javax.xml.crypto.dsig.DigestMethod;
+import javax.xml.crypto.dsig.XMLSignature;
 import javax.xml.namespace.QName;
-import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.Source;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.*;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
@@ -37,14 +47,46 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.MessageDigest;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Slf4j
 public abstract class XmlUtil {
 
     private static final Schema XML_SCHEMAS;
+    private static final ObjectPool<Validator> VALIDATORS;
     private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY;
     private static final XPathFactory X_PATH_FACTORY = XPathFactory.newInstance();
 
+    static final Class<?>[] ROOT_TYPES = {
+            EbicsHEVRequest.class,
+            EbicsHEVResponse.class,
+            EbicsRequest.class,
+            EbicsResponse.class,
+            EbicsUnsecuredRequest.class,
+            EbicsUnsignedRequest.class,
+            EbicsNoPubKeyDigestsRequest.class,
+            EbicsKeyManagementResponse.class,
+            H3KRequestOrderData.class,
+            Parameter.class,
+            OrderSignatureData.class,
+            SignaturePubKeyInfo.class,
+            SignaturePubKeyOrderData.class
+    };
+    private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
+    private static final ObjectPool<Transformer> TRANSFORMERS = new ObjectPool<>(() -> {
+        synchronized (TRANSFORMER_FACTORY) {
+            try {
+                return TRANSFORMER_FACTORY.newTransformer();
+            } catch (final TransformerConfigurationException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    });
+    private static final ConcurrentMap<Class<?>, JAXBContext> JAXB_CONTEXTS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, ObjectPool<Marshaller>> MARSHALLERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, ObjectPool<Unmarshaller>> UNMARSHALLERS = new ConcurrentHashMap<>();
+
     public static String CANONICALIZAION_METHOD = CanonicalizationMethod.INCLUSIVE;
     public static String DIGEST_METHOD = DigestMethod.SHA256;
     public static String SIGNATURE_METHOD = "http://www.w3.org/2001/04/xmldsig-more#rsa-sha256";
@@ -71,6 +113,21 @@ public abstract class XmlUtil {
         } catch (final SAXException e) {
             throw new RuntimeException(e);
         }
+        VALIDATORS = new ObjectPool<>(() -> {
+            final Validator validator = XML_SCHEMAS.newValidator();
+            validator.setErrorHandler(LoggingErrorHandler.INSTANCE);
+            return validator;
+        });
+    }
+
+    /**
+     * Eagerly creates the JAXB contexts of all EBICS root element types, so that the first requests of a
+     * client do not have to pay for the (rather expensive) context initialization.
+     */
+    public static void preloadContexts() {
+        for (final Class<?> rootType : ROOT_TYPES) {
+            jaxbContext(rootType);
+        }
     }
 
     public static <T> InputStream prettyPrint(final Class<T> clazz, final T object) {
@@ -78,20 +135,56 @@ public abstract class XmlUtil {
     }
 
     public static <T> InputStream prettyPrint(final Class<T> clazz, final T object, final String elementName) {
-        return prettyPrint(new JAXBElement<>(new QName(namespaceFromPackageAnnotation(clazz), elementName), clazz, object));
+        return prettyPrint(jaxbElement(clazz, object, elementName));
     }
 
     public static <T> InputStream prettyPrint(final JAXBElement<T> element) {
         final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        prettyPrint(element, outputStream);
+        marshal(element, outputStream, true, false);
+        return IOUtil.wrap(outputStream.toByteArray());
+    }
+
+    /**
+     * Serializes the given object without any indentation. This is the representation to be used for everything
+     * that goes over the wire, gets compressed or canonicalized, while {@link #prettyPrint(Class, Object)} is
+     * meant for human readable output only.
+     */
+    public static <T> InputStream compact(final Class<T> clazz, final T object) {
+        return compact(clazz, object, elementNameFrom(clazz));
+    }
+
+    public static <T> InputStream compact(final Class<T> clazz, final T object, final String elementName) {
+        return compact(jaxbElement(clazz, object, elementName));
+    }
+
+    public static <T> InputStream compact(final JAXBElement<T> element) {
+        return compact(element, false);
+    }
+
+    /**
+     * Serializes the given object like {@link #compact(Class, Object)}, optionally validating it against the EBICS
+     * schemas in the same pass.
+     */
+    public static <T> InputStream compact(final Class<T> clazz, final T object, final boolean validate) {
+        return compact(jaxbElement(clazz, object, elementNameFrom(clazz)), validate);
+    }
+
+    private static <T> InputStream compact(final JAXBElement<T> element, final boolean validate) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        marshal(element, outputStream, false, validate);
         return IOUtil.wrap(outputStream.toByteArray());
     }
 
+    /**
+     * Validates already serialized XML against the EBICS schemas. Prefer validating while marshalling (see
+     * {@link #toDocument(Class, Object, boolean)}) for messages created by the client itself, which saves parsing
+     * them again.
+     */
     public static byte[] validate(final byte[] xml) {
         try {
-            final Validator validator = XML_SCHEMAS.newValidator();
-            validator.setErrorHandler(LoggingErrorHandler.INSTANCE);
+            final Validator validator = VALIDATORS.borrow();
             validator.validate(new StreamSource(IOUtil.wrap(xml)));
+            VALIDATORS.release(validator);
             return xml;
         } catch (IOException | SAXException e) {
             throw new RuntimeException(e);
@@ -99,10 +192,11 @@ public abstract class XmlUtil {
     }
 
     public static <T> T parse(final Class<T> clazz, final InputStream inputStream) {
+        final ObjectPool<Unmarshaller> unmarshallers = unmarshallers(clazz);
         try {
-            final JAXBContext jaxbContext = JAXBContext.newInstance(clazz);
-            final Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+            final Unmarshaller jaxbUnmarshaller = unmarshallers.borrow();
             final Object deserialized = jaxbUnmarshaller.unmarshal(inputStream);
+            unmarshallers.release(jaxbUnmarshaller);
             if (clazz.isAssignableFrom(deserialized.getClass())) {
                 return clazz.cast(deserialized);
             } else {
@@ -114,11 +208,62 @@ public abstract class XmlUtil {
         }
     }
 
-    public static <T> byte[] sign(final Class<T> clazz, final T object, final EbicsUser user) {
+    /**
+     * Unmarshals the element the given stream is positioned at as the given type, leaving the stream right after
+     * the element's end tag. This allows binding parts of a document while reading others with the stream itself.
+     */
+    public static <T> T parse(final XMLStreamReader reader, final Class<T> declaredType) {
+        final ObjectPool<Unmarshaller> unmarshallers = unmarshallers(declaredType);
+        try {
+            final Unmarshaller jaxbUnmarshaller = unmarshallers.borrow();
+            final T deserialized = jaxbUnmarshaller.unmarshal(reader, declaredType).getValue();
+            unmarshallers.release(jaxbUnmarshaller);
+            return deserialized;
+        } catch (final JAXBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Marshals the given object into a new DOM document. This is the only marshalling step needed to sign a
+     * request: the authentication digest, the signature and the serialized request all derive from this document.
+     */
+    public static <T> Document toDocument(final Class<T> clazz, final T object) {
+        return toDocument(clazz, object, false);
+    }
+
+    /**
+     * Marshals the given object into a new DOM document like {@link #toDocument(Class, Object)}, optionally
+     * validating the object tree against the EBICS schemas in the same pass.
+     */
+    public static <T> Document toDocument(final Class<T> clazz, final T object, final boolean validate) {
+        final ObjectPool<Marshaller> marshallers = marshallers(clazz);
+        try {
+            final Document document = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder().newDocument();
+            final Marshaller marshaller = marshallers.borrow();
+            marshaller.setSchema(validate ? XML_SCHEMAS : null);
+            marshaller.marshal(jaxbElement(clazz, object, elementNameFrom(clazz)), document);
+            marshallers.release(marshaller);
+            return document;
+        } catch (JAXBException | ParserConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static byte[] serialize(final Document document) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         try {
-            final DocumentBuilder builder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
-            final Document document = builder.parse(prettyPrint(clazz, object));
+            final Transformer transformer = TRANSFORMERS.borrow();
+            transformer.transform(new DOMSource(document), new StreamResult(outputStream));
+            TRANSFORMERS.release(transformer);
+        } catch (final TransformerException e) {
+            throw new RuntimeException(e);
+        }
+        return outputStream.toByteArray();
+    }
 
+    public static byte[] sign(final Document document, final EbicsUser user) {
+        try {
             final XPath xPath = X_PATH_FACTORY.newXPath();
             final Node node = (Node) xPath.evaluate("//*[local-name()='SignedInfo']", document.getDocumentElement(), XPathConstants.NODE);
 
@@ -131,15 +276,12 @@ public abstract class XmlUtil {
         }
     }
 
-    public static <T> byte[] digest(final Class<T> clazz, final T object) {
+    public static byte[] digest(final Document document) {
         try {
-            final DocumentBuilder builder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
-            final Document document = builder.parse(prettyPrint(clazz, object));
-
             final XPath xPath = X_PATH_FACTORY.newXPath();
             final NodeList nodes = (NodeList) xPath.evaluate(XPATH_SELECTOR, document.getDocumentElement(), XPathConstants.NODESET);
 
-            final MessageDigest digester = MessageDigest.getInstance(CryptoUtil.EBICS_DIGEST_ALGORITHM);
+            final MessageDigest digester = CryptoPrimitives.messageDigest(CryptoUtil.EBICS_DIGEST_ALGORITHM);
             for (int i = 0; i < nodes.getLength(); ++i) {
                 final Node node = nodes.item(i);
                 final byte[] canonized = canonize(node);
@@ -152,16 +294,71 @@ public abstract class XmlUtil {
         }
     }
 
-    private static <T> void prettyPrint(final JAXBElement<T> element, final OutputStream outputStream) {
+    /**
+     * Sets the base64 encoded value as text content of the first XML signature element with the given name.
+     */
+    public static void setSignatureElementValue(final Document document, final String localName, final byte[] value) {
+        final Node node = document.getElementsByTagNameNS(XMLSignature.XMLNS, localName).item(0);
+        if (null == node) {
+            throw new IllegalArgumentException("No XML signature element found with name " + localName);
+        }
+        node.setTextContent(DatatypeConverter.printBase64Binary(value));
+    }
+
+    private static <T> void marshal(final JAXBElement<T> element, final OutputStream outputStream,
+                                    final boolean formatted, final boolean validate) {
+        final ObjectPool<Marshaller> marshallers = marshallers(element.getDeclaredType());
         try {
-            final JAXBContext ctx = JAXBContext.newInstance(element.getDeclaredType());
-            final Marshaller marshaller = ctx.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            final Marshaller marshaller = marshallers.borrow();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
+            marshaller.setSchema(validate ? XML_SCHEMAS : null);
             marshaller.marshal(element, outputStream);
+            marshallers.release(marshaller);
         } catch (final JAXBException e) {
             throw new RuntimeException(e);
         }
+    }
+
+    /**
+     * @return the JAXB context already created for the given type, or {@code null} if there is none yet
+     */
+    static JAXBContext cachedContext(final Class<?> clazz) {
+        return JAXB_CONTEXTS.get(clazz);
+    }
+
+    private static JAXBContext jaxbContext(final Class<?> clazz) {
+        return JAXB_CONTEXTS.computeIfAbsent(clazz, c -> {
+            try {
+                log.debug("Creating JAXB context for {}", c.getName());
+                return JAXBContext.newInstance(c);
+            } catch (final JAXBException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static ObjectPool<Marshaller> marshallers(final Class<?> clazz) {
+        return MARSHALLERS.computeIfAbsent(clazz, c -> new ObjectPool<>(() -> {
+            try {
+                return jaxbContext(c).createMarshaller();
+            } catch (final JAXBException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+    }
+
+    private static ObjectPool<Unmarshaller> unmarshallers(final Class<?> clazz) {
+        return UNMARSHALLERS.computeIfAbsent(clazz, c -> new ObjectPool<>(() -> {
+            try {
+                return jaxbContext(c).createUnmarshaller();
+            } catch (final JAXBException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+    }
 
+    private static <T> JAXBElement<T> jaxbElement(final Class<T> clazz, final T object, final String elementName) {
+        return new JAXBElement<>(new QName(namespaceFromPackageAnnotation(clazz), elementName), clazz, object);
     }
 
     private static <T> String elementNameFrom(final Class<T> clazz) {
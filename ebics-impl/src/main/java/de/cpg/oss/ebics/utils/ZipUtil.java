@@ -1,11 +1,28 @@
 package de.cpg.oss.ebics.utils;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterInputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
+import java.util.zip.InflaterOutputStream;
 
+/**
+ * Compression of order data according to RFC 1950/1951.
+ * <p>
+ * <p>Deflaters and inflaters hold native zlib memory. They are pooled and given back to the pool, or ended, when the
+ * stream using them is closed, so streams returned here should always be closed.
+ */
 public abstract class ZipUtil {
+
+    private static final ConcurrentMap<Integer, ObjectPool<Deflater>> DEFLATERS = new ConcurrentHashMap<>();
+    private static final ObjectPool<Inflater> INFLATERS = new ObjectPool<>(Inflater::new);
+
     /**
      * Compresses an input of byte array
      * <p>
@@ -17,7 +34,73 @@ public abstract class ZipUtil {
      * @return the compressed input data
      */
     public static InputStream compress(final InputStream inputStream) {
-        return new DeflaterInputStream(inputStream, new Deflater(Deflater.BEST_COMPRESSION));
+        return compress(inputStream, Deflater.BEST_COMPRESSION);
+    }
+
+    /**
+     * Compresses the input like {@link #compress(InputStream)} with the given compression level.
+     *
+     * @param inputStream the input to be compressed
+     * @param level       the compression level from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+     * @return the compressed input data
+     */
+    public static InputStream compress(final InputStream inputStream, final int level) {
+        final Deflater deflater = deflaters(level).borrow();
+        return new DeflaterInputStream(inputStream, deflater) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    release(level, deflater);
+                }
+            }
+        };
+    }
+
+    /**
+     * Compresses everything written to the returned stream like {@link #compress(InputStream)} and passes the
+     * result on to the given output stream.
+     *
+     * @param outputStream the stream receiving the compressed data
+     * @return the stream to write the data to be compressed to
+     */
+    public static OutputStream compress(final OutputStream outputStream) {
+        return compress(outputStream, Deflater.BEST_COMPRESSION);
+    }
+
+    /**
+     * Compresses everything written to the returned stream like {@link #compress(OutputStream)} with the given
+     * compression level.
+     *
+     * @param outputStream the stream receiving the compressed data
+     * @param level        the compression level from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+     * @return the stream to write the data to be compressed to
+     */
+    public static OutputStream compress(final OutputStream outputStream, final int level) {
+        final Deflater deflater = deflaters(level).borrow();
+        return new DeflaterOutputStream(outputStream, deflater) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    release(level, deflater);
+                }
+            }
+        };
     }
 
     /**
@@ -31,6 +114,71 @@ public abstract class ZipUtil {
      * @return the uncompressed data.
      */
     public static InputStream uncompress(final InputStream inputStream) {
-        return new InflaterInputStream(inputStream);
+        final Inflater inflater = INFLATERS.borrow();
+        return new InflaterInputStream(inputStream, inflater) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    release(inflater);
+                }
+            }
+        };
+    }
+
+    /**
+     * Uncompresses everything written to the returned stream like {@link #uncompress(InputStream)} and passes the
+     * result on to the given output stream.
+     *
+     * @param outputStream the stream receiving the uncompressed data
+     * @return the stream to write the zipped data to
+     */
+    public static OutputStream uncompress(final OutputStream outputStream) {
+        final Inflater inflater = INFLATERS.borrow();
+        return new InflaterOutputStream(outputStream, inflater) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    release(inflater);
+                }
+            }
+        };
+    }
+
+    /**
+     * A deflater's level only takes effect with the next chunk of input, so deflaters are pooled per level rather
+     * than being switched to another one.
+     */
+    private static ObjectPool<Deflater> deflaters(final int level) {
+        return DEFLATERS.computeIfAbsent(level, l -> new ObjectPool<>(() -> new Deflater(l)));
+    }
+
+    private static void release(final int level, final Deflater deflater) {
+        deflater.reset();
+        if (!deflaters(level).release(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private static void release(final Inflater inflater) {
+        inflater.reset();
+        if (!INFLATERS.release(inflater)) {
+            inflater.end();
+        }
     }
 }
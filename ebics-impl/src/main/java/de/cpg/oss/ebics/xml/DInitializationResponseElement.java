@@ -3,18 +3,17 @@ package de.cpg.oss.ebics.xml;
 import de.cpg.oss.ebics.api.MessageProvider;
 import de.cpg.oss.ebics.api.exception.EbicsException;
 import de.cpg.oss.ebics.api.exception.ReturnCode;
-import org.ebics.h004.EbicsResponse;
 
 import java.io.InputStream;
 
 public class DInitializationResponseElement extends EbicsResponseElement {
 
-    private DInitializationResponseElement(final EbicsResponse ebicsResponse) {
-        super(ebicsResponse);
+    private DInitializationResponseElement(final EbicsResponseReader.Content content) {
+        super(content);
     }
 
     public static DInitializationResponseElement parse(final InputStream inputStream) {
-        return new DInitializationResponseElement(parseXml(inputStream));
+        return new DInitializationResponseElement(EbicsResponseReader.read(inputStream));
     }
 
     @Override
@@ -1,10 +1,8 @@
 package de.cpg.oss.ebics.xml;
 
 import de.cpg.oss.ebics.api.EbicsSession;
-import de.cpg.oss.ebics.api.EbicsUser;
 import de.cpg.oss.ebics.api.OrderType;
 import de.cpg.oss.ebics.utils.CryptoUtil;
-import de.cpg.oss.ebics.utils.XmlUtil;
 import org.ebics.h004.EbicsRequest;
 import org.ebics.h004.OrderAttributeType;
 import org.ebics.h004.TransactionPhaseType;
@@ -17,31 +15,28 @@ public interface EbicsRequestElement {
 
     EbicsRequest createForSigning(EbicsSession session);
 
-    default EbicsRequest create(final EbicsSession session) {
-        return sign(createForSigning(session), session.getUser());
+    default SignedRequest<EbicsRequest> create(final EbicsSession session) {
+        return sign(createForSigning(session), session);
     }
 
-    static <R extends EbicsRequestElement> EbicsRequest create(
+    static <R extends EbicsRequestElement> SignedRequest<EbicsRequest> create(
             final EbicsSession session,
             final Supplier<R> ebicsRequestElementSupplier) {
         return ebicsRequestElementSupplier.get().create(session);
     }
 
-    static EbicsRequest sign(final EbicsRequest requestToSign, final EbicsUser user) {
-        requestToSign.setAuthSignature(XmlSignatureFactory.signatureType(
-                XmlUtil.digest(EbicsRequest.class, requestToSign)));
-        requestToSign.getAuthSignature().getSignatureValue().setValue(
-                XmlUtil.sign(EbicsRequest.class, requestToSign, user));
-        return requestToSign;
+    static SignedRequest<EbicsRequest> sign(final EbicsRequest requestToSign, final EbicsSession session) {
+        requestToSign.setAuthSignature(XmlSignatureFactory.signatureType(new byte[0]));
+        return SignedRequest.sign(EbicsRequest.class, requestToSign, requestToSign.getAuthSignature(), session);
     }
 
-    static EbicsRequest createSigned(final EbicsSession session, final OrderType orderType) {
+    static SignedRequest<EbicsRequest> createSigned(final EbicsSession session, final OrderType orderType) {
         return sign(request(session.getConfiguration(),
                 header(mutableHeader(TransactionPhaseType.INITIALISATION),
                         staticHeader(session,
                                 CryptoUtil.generateNonce(),
                                 orderDetails(orderAttribute(orderType), orderType)))),
-                session.getUser());
+                session);
     }
 
     static OrderAttributeType orderAttribute(final OrderType orderType) {
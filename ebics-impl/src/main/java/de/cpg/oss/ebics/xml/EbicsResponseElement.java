@@ -1,22 +1,28 @@
 package de.cpg.oss.ebics.xml;
 
 import de.cpg.oss.ebics.api.exception.ReturnCode;
-import de.cpg.oss.ebics.utils.XmlUtil;
-import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.ebics.h004.EbicsResponse;
 
 import java.io.InputStream;
 
-@AllArgsConstructor(access = AccessLevel.PROTECTED)
+/**
+ * A response read by the {@link EbicsResponseReader}. The order data is kept apart from the JAXB tree of the
+ * response, whose <code>OrderData</code> element is left empty.
+ */
 public class EbicsResponseElement implements ResponseElement<EbicsResponse> {
 
     @Getter
     private final EbicsResponse response;
+    private final byte[] orderData;
+
+    EbicsResponseElement(final EbicsResponseReader.Content content) {
+        this.response = content.getResponse();
+        this.orderData = content.getOrderData();
+    }
 
     public static EbicsResponseElement parse(final InputStream inputStream) {
-        return new EbicsResponseElement(parseXml(inputStream));
+        return new EbicsResponseElement(EbicsResponseReader.read(inputStream));
     }
 
     @Override
@@ -38,7 +44,7 @@ public class EbicsResponseElement implements ResponseElement<EbicsResponse> {
 
     @Override
     public byte[] getOrderData() {
-        return getBody().getDataTransfer().getOrderData().getValue();
+        return orderData;
     }
 
     @Override
@@ -52,8 +58,4 @@ public class EbicsResponseElement implements ResponseElement<EbicsResponse> {
                 getHeader().getMutable().getReturnCode(),
                 getHeader().getMutable().getReportText());
     }
-
-    static EbicsResponse parseXml(final InputStream inputStream) {
-        return XmlUtil.parse(EbicsResponse.class, inputStream);
-    }
 }
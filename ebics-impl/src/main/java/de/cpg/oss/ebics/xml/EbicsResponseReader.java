@@ -0,0 +1,244 @@
+package de.cpg.oss.ebics.xml;
+
+import de.cpg.oss.ebics.api.FileTransferManager;
+import de.cpg.oss.ebics.utils.XmlUtil;
+import lombok.Value;
+import org.ebics.h004.DataTransferResponseType;
+import org.ebics.h004.EbicsResponse;
+import org.ebics.h004.ResponseMutableHeaderType;
+import org.w3.xmldsig.SignatureType;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Reads an <code>ebicsResponse</code> with a streaming parser.
+ * <p>
+ * <p>Header, signature and all small body elements are bound to their JAXB types one at a time. The base64 encoded
+ * <code>OrderData</code> however is decoded chunk by chunk while it is read, so neither its text nor a complete
+ * document tree is ever held in memory. The returned response carries an empty <code>OrderData</code> element, which
+ * keeps tracing the response cheap, and the decoded order data is returned separately.
+ * <p>
+ * <p>The order data of a transfer segment which is not the last one is decoded into a buffer sized for a full
+ * segment, which is handed over as it is when the order data fills it exactly. All other order data, like the last
+ * segment or the small responses of e.g. HPD or HTD, starts in a small buffer which grows as needed.
+ */
+abstract class EbicsResponseReader {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+    private static final int BASE64_CHUNK_SIZE = 16 * 1024;
+    private static final int INITIAL_ORDER_DATA_SIZE = 16 * 1024;
+
+    static {
+        XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, false);
+    }
+
+    @Value
+    static class Content {
+        private final EbicsResponse response;
+        private final byte[] orderData;
+    }
+
+    @FunctionalInterface
+    private interface ChildReader {
+        void read(String localName) throws XMLStreamException;
+    }
+
+    static Content read(final InputStream inputStream) {
+        try {
+            final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+            try {
+                return readResponse(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Content readResponse(final XMLStreamReader reader) throws XMLStreamException {
+        reader.nextTag();
+        reader.require(XMLStreamConstants.START_ELEMENT, null, "ebicsResponse");
+
+        final EbicsResponse response = new EbicsResponse();
+        response.setVersion(reader.getAttributeValue(null, "Version"));
+        Optional.ofNullable(reader.getAttributeValue(null, "Revision"))
+                .map(Integer::valueOf)
+                .ifPresent(response::setRevision);
+
+        final OrderDataBuffer[] orderData = {null};
+
+        readChildren(reader, child -> {
+            switch (child) {
+                case "header":
+                    response.setHeader(XmlUtil.parse(reader, EbicsResponse.Header.class));
+                    break;
+                case "AuthSignature":
+                    response.setAuthSignature(XmlUtil.parse(reader, SignatureType.class));
+                    break;
+                case "body":
+                    final EbicsResponse.Body body = new EbicsResponse.Body();
+                    response.setBody(body);
+                    readChildren(reader, bodyChild -> {
+                        switch (bodyChild) {
+                            case "DataTransfer":
+                                final DataTransferResponseType dataTransfer = new DataTransferResponseType();
+                                body.setDataTransfer(dataTransfer);
+                                readChildren(reader, dataTransferChild -> {
+                                    switch (dataTransferChild) {
+                                        case "DataEncryptionInfo":
+                                            dataTransfer.setDataEncryptionInfo(XmlUtil.parse(reader,
+                                                    DataTransferResponseType.DataEncryptionInfo.class));
+                                            break;
+                                        case "SignatureData":
+                                            dataTransfer.setSignatureData(XmlUtil.parse(reader,
+                                                    DataTransferResponseType.SignatureData.class));
+                                            break;
+                                        case "OrderData":
+                                            dataTransfer.setOrderData(new DataTransferResponseType.OrderData());
+                                            orderData[0] = new OrderDataBuffer(isFullSegment(response)
+                                                    ? FileTransferManager.BLOCK_SIZE
+                                                    : INITIAL_ORDER_DATA_SIZE);
+                                            decodeBase64(reader, orderData[0]);
+                                            break;
+                                        default:
+                                            skipElement(reader);
+                                    }
+                                });
+                                break;
+                            case "ReturnCode":
+                                body.setReturnCode(XmlUtil.parse(reader, EbicsResponse.Body.ReturnCode.class));
+                                break;
+                            case "TimestampBankParameter":
+                                body.setTimestampBankParameter(XmlUtil.parse(reader,
+                                        EbicsResponse.Body.TimestampBankParameter.class));
+                                break;
+                            default:
+                                skipElement(reader);
+                        }
+                    });
+                    break;
+                default:
+                    skipElement(reader);
+            }
+        });
+
+        return new Content(response, null == orderData[0] ? null : orderData[0].toOrderData());
+    }
+
+    /**
+     * Whether the header, which precedes the body, announces a transfer segment followed by further segments. Such
+     * segments are full, as the order data is split into segments of {@link FileTransferManager#BLOCK_SIZE}.
+     */
+    private static boolean isFullSegment(final EbicsResponse response) {
+        return Optional.ofNullable(response.getHeader())
+                .map(EbicsResponse.Header::getMutable)
+                .map(ResponseMutableHeaderType::getSegmentNumber)
+                .map(segmentNumber -> !segmentNumber.isLastSegment())
+                .orElse(false);
+    }
+
+    /**
+     * Calls the given reader for every child element of the element the stream is positioned at. The child reader
+     * has to consume the whole child element, leaving the stream right after its end tag, which is what JAXB does
+     * as well. Afterwards the stream is positioned right after the end tag of the parent.
+     */
+    private static void readChildren(final XMLStreamReader reader,
+                                     final ChildReader childReader) throws XMLStreamException {
+        reader.next();
+        while (true) {
+            switch (reader.getEventType()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    childReader.read(reader.getLocalName());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    reader.next();
+                    return;
+                case XMLStreamConstants.END_DOCUMENT:
+                    throw new XMLStreamException("Unexpected end of document", reader.getLocation());
+                default:
+                    reader.next();
+            }
+        }
+    }
+
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        do {
+            final int event = reader.next();
+            if (XMLStreamConstants.START_ELEMENT == event) {
+                depth++;
+            } else if (XMLStreamConstants.END_ELEMENT == event) {
+                depth--;
+            }
+        } while (depth >= 0);
+        reader.next();
+    }
+
+    /**
+     * Decodes the base64 text content of the current element into the given stream, a chunk of characters at a
+     * time. Whitespace within the text is ignored.
+     */
+    private static void decodeBase64(final XMLStreamReader reader,
+                                     final OrderDataBuffer output) throws XMLStreamException {
+        final Base64.Decoder decoder = Base64.getDecoder();
+        final char[] characters = new char[BASE64_CHUNK_SIZE];
+        final byte[] encoded = new byte[BASE64_CHUNK_SIZE];
+        final byte[] decoded = new byte[BASE64_CHUNK_SIZE / 4 * 3];
+        int pending = 0;
+
+        for (int event = reader.next(); XMLStreamConstants.END_ELEMENT != event; event = reader.next()) {
+            if (XMLStreamConstants.CHARACTERS != event && XMLStreamConstants.CDATA != event
+                    && XMLStreamConstants.SPACE != event) {
+                continue;
+            }
+            final int textLength = reader.getTextLength();
+            for (int offset = 0; offset < textLength; ) {
+                final int read = reader.getTextCharacters(offset, characters, 0,
+                        Math.min(characters.length, textLength - offset));
+                offset += read;
+                for (int i = 0; i < read; i++) {
+                    final char c = characters[i];
+                    if (!Character.isWhitespace(c)) {
+                        encoded[pending++] = (byte) c;
+                        if (pending == encoded.length) {
+                            output.write(decoded, 0, decoder.decode(encoded, decoded));
+                            pending = 0;
+                        }
+                    }
+                }
+            }
+        }
+        if (pending > 0) {
+            final byte[] remainder = new byte[pending];
+            System.arraycopy(encoded, 0, remainder, 0, pending);
+            output.write(decoded, 0, decoder.decode(remainder, decoded));
+        }
+        reader.next();
+    }
+
+    /**
+     * Collects decoded order data and hands the array over without copying it when it has been filled exactly.
+     */
+    private static final class OrderDataBuffer extends ByteArrayOutputStream {
+
+        private OrderDataBuffer(final int size) {
+            super(size);
+        }
+
+        private byte[] toOrderData() {
+            return count == buf.length ? buf : Arrays.copyOf(buf, count);
+        }
+    }
+}
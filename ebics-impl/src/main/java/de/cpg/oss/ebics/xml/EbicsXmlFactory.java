@@ -125,7 +125,7 @@ public abstract class EbicsXmlFactory {
         return DataTransferRequestType.SignatureData.builder()
                 .withAuthenticate(true)
                 .withValue(IOUtil.read(CryptoUtil.encryptAES(
-                        ZipUtil.compress(XmlUtil.prettyPrint(
+                        ZipUtil.compress(XmlUtil.compact(
                                 EbicsSignatureXmlFactory.userSignature(user, partnerId, signatureSupplier))),
                         nonce)))
                 .build();
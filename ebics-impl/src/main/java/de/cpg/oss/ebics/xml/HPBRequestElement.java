@@ -4,22 +4,17 @@ import de.cpg.oss.ebics.api.EbicsConfiguration;
 import de.cpg.oss.ebics.api.EbicsSession;
 import de.cpg.oss.ebics.api.OrderType;
 import de.cpg.oss.ebics.utils.CryptoUtil;
-import de.cpg.oss.ebics.utils.XmlUtil;
 import org.ebics.h004.*;
 
 import java.time.OffsetDateTime;
 
 public abstract class HPBRequestElement {
 
-    public static EbicsNoPubKeyDigestsRequest create(final EbicsSession session) {
+    public static SignedRequest<EbicsNoPubKeyDigestsRequest> create(final EbicsSession session) {
         final EbicsNoPubKeyDigestsRequest request = ebicsNoPubKeyDigestsRequest(session);
+        request.setAuthSignature(XmlSignatureFactory.signatureType(new byte[0]));
 
-        request.setAuthSignature(XmlSignatureFactory.signatureType(
-                XmlUtil.digest(EbicsNoPubKeyDigestsRequest.class, request)));
-        request.getAuthSignature().getSignatureValue().setValue(
-                XmlUtil.sign(EbicsNoPubKeyDigestsRequest.class, request, session.getUser()));
-
-        return request;
+        return SignedRequest.sign(EbicsNoPubKeyDigestsRequest.class, request, request.getAuthSignature(), session);
     }
 
     private static EbicsNoPubKeyDigestsRequest ebicsNoPubKeyDigestsRequest(final EbicsSession session) {
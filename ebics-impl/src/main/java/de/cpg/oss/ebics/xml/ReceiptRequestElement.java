@@ -1,7 +1,6 @@
 package de.cpg.oss.ebics.xml;
 
 import de.cpg.oss.ebics.api.EbicsSession;
-import de.cpg.oss.ebics.utils.XmlUtil;
 import lombok.AllArgsConstructor;
 import org.ebics.h004.EbicsRequest;
 import org.ebics.h004.TransactionPhaseType;
@@ -17,7 +16,7 @@ public class ReceiptRequestElement {
 
     private final byte[] transactionId;
 
-    public EbicsRequest create(final EbicsSession session) {
+    public SignedRequest<EbicsRequest> create(final EbicsSession session) {
         final EbicsRequest request = request(
                 session.getConfiguration(),
                 header(
@@ -30,8 +29,6 @@ public class ReceiptRequestElement {
                                 .build())
                         .build());
 
-        request.setAuthSignature(XmlSignatureFactory.signatureType(XmlUtil.digest(EbicsRequest.class, request)));
-
-        return request;
+        return EbicsRequestElement.sign(request, session);
     }
 }
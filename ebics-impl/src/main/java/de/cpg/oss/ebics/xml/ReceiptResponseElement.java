@@ -3,18 +3,17 @@ package de.cpg.oss.ebics.xml;
 import de.cpg.oss.ebics.api.MessageProvider;
 import de.cpg.oss.ebics.api.exception.EbicsException;
 import de.cpg.oss.ebics.api.exception.ReturnCode;
-import org.ebics.h004.EbicsResponse;
 
 import java.io.InputStream;
 
 public class ReceiptResponseElement extends EbicsResponseElement {
 
-    private ReceiptResponseElement(final EbicsResponse ebicsResponse) {
-        super(ebicsResponse);
+    private ReceiptResponseElement(final EbicsResponseReader.Content content) {
+        super(content);
     }
 
     public static ReceiptResponseElement parse(final InputStream inputStream) {
-        return new ReceiptResponseElement(parseXml(inputStream));
+        return new ReceiptResponseElement(EbicsResponseReader.read(inputStream));
     }
 
     @Override
@@ -0,0 +1,57 @@
+package de.cpg.oss.ebics.xml;
+
+import de.cpg.oss.ebics.api.EbicsSession;
+import de.cpg.oss.ebics.utils.XmlUtil;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.w3.xmldsig.SignatureType;
+import org.w3c.dom.Document;
+
+/**
+ * An authenticated EBICS request together with the DOM document its signature has been computed on.
+ * <p>
+ * <p>The request is marshalled exactly once: the X002 digest of all <code>authenticate='true'</code> elements
+ * and the signature of the <code>SignedInfo</code> element are computed on that document, written into it and
+ * the very same document is serialized for the transport afterwards.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SignedRequest<T> {
+
+    @Getter
+    private final Class<T> requestClass;
+    @Getter
+    private final T request;
+    private final Document document;
+
+    /**
+     * Signs the given request.
+     *
+     * @param requestClass  the class of the request
+     * @param request       the request, with an empty <code>AuthSignature</code> element already in place
+     * @param authSignature the <code>AuthSignature</code> element of the request
+     * @param session       the session whose user's authentication key is used for signing, and whose
+     *                      configuration decides whether the request is validated while being marshalled
+     */
+    static <T> SignedRequest<T> sign(final Class<T> requestClass,
+                                     final T request,
+                                     final SignatureType authSignature,
+                                     final EbicsSession session) {
+        final Document document = XmlUtil.toDocument(requestClass, request,
+                session.getConfiguration().getValidationPolicy().shouldValidate());
+
+        final byte[] digest = XmlUtil.digest(document);
+        authSignature.getSignedInfo().getReferences().get(0).setDigestValue(digest);
+        XmlUtil.setSignatureElementValue(document, "DigestValue", digest);
+
+        final byte[] signature = XmlUtil.sign(document, session.getUser());
+        authSignature.getSignatureValue().setValue(signature);
+        XmlUtil.setSignatureElementValue(document, "SignatureValue", signature);
+
+        return new SignedRequest<>(requestClass, request, document);
+    }
+
+    public byte[] toByteArray() {
+        return XmlUtil.serialize(document);
+    }
+}
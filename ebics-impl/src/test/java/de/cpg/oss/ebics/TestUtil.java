@@ -8,44 +8,105 @@ import de.cpg.oss.ebics.utils.KeyUtil;
 
 import java.security.KeyPair;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public abstract class TestUtil {
 
+    @FunctionalInterface
+    public interface ConcurrentTask<T> {
+        T run(int thread) throws Exception;
+    }
+
+    /**
+     * Runs the task on the given number of threads, all released at the same time, and waits for all of them.
+     *
+     * @return the results of the task, in the order of the threads
+     */
+    public static <T> List<T> runConcurrently(final int threads, final ConcurrentTask<T> task) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<T>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.run(thread);
+                }));
+            }
+            start.countDown();
+
+            final List<T> results = new ArrayList<>(threads);
+            for (final Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     public static EbicsSession createEbicsSession() throws Exception {
         final EbicsConfiguration configuration = new EbicsConfiguration();
         final KeyPair signatureKey = KeyUtil.createRsaKeyPair(KeyUtil.EBICS_KEY_SIZE);
         final KeyPair authenticationKey = KeyUtil.createRsaKeyPair(KeyUtil.EBICS_KEY_SIZE);
         final KeyPair encryptionKey = KeyUtil.createRsaKeyPair(KeyUtil.EBICS_KEY_SIZE);
+        final KeyPair bankAuthenticationKey = KeyUtil.createRsaKeyPair(KeyUtil.EBICS_KEY_SIZE);
+        final KeyPair bankEncryptionKey = KeyUtil.createRsaKeyPair(KeyUtil.EBICS_KEY_SIZE);
 
         return EbicsSession.builder()
                 .configuration(configuration)
                 .xmlMessageTracer(NoOpXmlMessageTracer.INSTANCE)
                 .persistenceProvider(InMemoryPersistenceProvider.INSTANCE)
                 .fileTransferManager(new DefaultFileTransferManager(InMemoryPersistenceProvider.INSTANCE))
+                .transport((bank, request) -> {
+                    throw new UnsupportedOperationException("No transport in tests");
+                })
                 .bank(EbicsBank.builder()
                         .hostId("HOSTID")
                         .uri("https://bank.example.org")
+                        .authenticationKey(EbicsAuthenticationKey.builder()
+                                .digest(KeyUtil.getKeyDigest(bankAuthenticationKey.getPublic()))
+                                .publicKey(bankAuthenticationKey.getPublic())
+                                .creationTime(Instant.now())
+                                .version(configuration.getAuthenticationVersion())
+                                .build())
+                        .encryptionKey(EbicsEncryptionKey.builder()
+                                .digest(KeyUtil.getKeyDigest(bankEncryptionKey.getPublic()))
+                                .publicKey(bankEncryptionKey.getPublic())
+                                .creationTime(Instant.now())
+                                .version(configuration.getEncryptionVersion())
+                                .build())
                         .build())
                 .partner(EbicsPartner.builder()
                         .partnerId("PARTNERID")
                         .build())
                 .user(EbicsUser.builder()
                         .userId("USERID")
+                        .securityMedium("0100")
                         .status(UserStatus.INITIALIZED)
                         .signatureKey(EbicsSignatureKey.builder()
                                 .digest(KeyUtil.getKeyDigest(signatureKey.getPublic()))
+                                .privateKey(signatureKey.getPrivate())
                                 .publicKey(signatureKey.getPublic())
                                 .creationTime(Instant.now())
                                 .version(configuration.getSignatureVersion())
                                 .build())
                         .authenticationKey(EbicsAuthenticationKey.builder()
                                 .digest(KeyUtil.getKeyDigest(authenticationKey.getPublic()))
+                                .privateKey(authenticationKey.getPrivate())
                                 .publicKey(authenticationKey.getPublic())
                                 .creationTime(Instant.now())
                                 .version(configuration.getAuthenticationVersion())
                                 .build())
                         .encryptionKey(EbicsEncryptionKey.builder()
                                 .digest(KeyUtil.getKeyDigest(encryptionKey.getPublic()))
+                                .privateKey(encryptionKey.getPrivate())
                                 .publicKey(encryptionKey.getPublic())
                                 .creationTime(Instant.now())
                                 .version(configuration.getEncryptionVersion())
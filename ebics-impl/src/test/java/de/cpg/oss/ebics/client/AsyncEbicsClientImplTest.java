@@ -0,0 +1,40 @@
+package de.cpg.oss.ebics.client;
+
+import de.cpg.oss.ebics.TestUtil;
+import de.cpg.oss.ebics.api.EbicsConfiguration;
+import de.cpg.oss.ebics.api.EbicsSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncEbicsClientImplTest {
+
+    private AsyncEbicsClientImpl ebicsClient;
+
+    @Before
+    public void createTestClient() throws Exception {
+        ebicsClient = new AsyncEbicsClientImpl(new EbicsConfiguration());
+    }
+
+    @After
+    public void closeTestClient() throws Exception {
+        ebicsClient.close();
+    }
+
+    @Test
+    public void testCollectInformation() throws Exception {
+        final EbicsSession session = TestUtil.createEbicsSession();
+        try {
+            ebicsClient.collectInformation(session.withBank(session.getBank().withUri("http://localhost:4711")))
+                    .get();
+            throw new IllegalStateException("Expected future to fail with connection exception");
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(ConnectException.class);
+        }
+    }
+}
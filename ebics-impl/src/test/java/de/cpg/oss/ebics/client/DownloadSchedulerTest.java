@@ -0,0 +1,78 @@
+package de.cpg.oss.ebics.client;
+
+import de.cpg.oss.ebics.TestUtil;
+import de.cpg.oss.ebics.api.EbicsSession;
+import de.cpg.oss.ebics.api.OrderType;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DownloadSchedulerTest {
+
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger totalInFlight = new AtomicInteger();
+    private final AtomicInteger maxTotalInFlight = new AtomicInteger();
+
+    @Test
+    public void testConcurrencyLimits() throws Exception {
+        final EbicsSession session = TestUtil.createEbicsSession();
+        final List<DownloadJob> jobs = new ArrayList<>();
+        final List<ByteArrayOutputStream> sinks = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            sinks.add(sink);
+            jobs.add(DownloadJob.builder()
+                    .session(session.withBank(session.getBank().withHostId("BANK" + (i % 3))))
+                    .orderType(i == 5 ? OrderType.HAC : OrderType.STA)
+                    .sink(() -> sink)
+                    .build());
+        }
+
+        final DownloadReport report;
+        try (final DownloadScheduler scheduler = new DownloadScheduler(4, 2, this::fakeDownload)) {
+            report = scheduler.run(jobs);
+        }
+
+        assertThat(report.getResults()).hasSize(12);
+        assertThat(report.getFailed()).hasSize(1);
+        assertThat(report.getFailed().get(0).getJob()).isSameAs(jobs.get(5));
+        assertThat(report.getTotalBytes()).isEqualTo(11 * 100);
+        assertThat(sinks.get(0).toByteArray()).hasSize(100);
+        assertThat(report.getBytesPerSecond()).isGreaterThan(0);
+
+        assertThat(maxTotalInFlight.get()).isBetween(2, 4);
+        maxInFlight.values().forEach(max -> assertThat(max.get()).isBetween(1, 2));
+    }
+
+    private void fakeDownload(final DownloadJob job, final Supplier<OutputStream> sink) {
+        final String hostId = job.getSession().getBank().getHostId();
+        final int bankInFlight = inFlight.computeIfAbsent(hostId, id -> new AtomicInteger()).incrementAndGet();
+        maxInFlight.computeIfAbsent(hostId, id -> new AtomicInteger()).accumulateAndGet(bankInFlight, Math::max);
+        maxTotalInFlight.accumulateAndGet(totalInFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(50);
+            if (OrderType.HAC == job.getOrderType()) {
+                throw new IllegalStateException("No download data available");
+            }
+            try (final OutputStream outputStream = sink.get()) {
+                outputStream.write(new byte[100]);
+            }
+        } catch (final InterruptedException | IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            totalInFlight.decrementAndGet();
+            inFlight.get(hostId).decrementAndGet();
+        }
+    }
+}
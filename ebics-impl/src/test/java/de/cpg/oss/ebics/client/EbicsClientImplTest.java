@@ -1,7 +1,7 @@
 package de.cpg.oss.ebics.client;
 
-import de.cpg.oss.ebics.api.EbicsClient;
 import de.cpg.oss.ebics.api.EbicsConfiguration;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -12,13 +12,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 public class EbicsClientImplTest {
 
-    private EbicsClient ebicsClient;
+    private EbicsClientImpl ebicsClient;
 
     @Before
     public void createTestClient() throws Exception {
         ebicsClient = new EbicsClientImpl(new EbicsConfiguration());
     }
 
+    @After
+    public void closeTestClient() throws Exception {
+        ebicsClient.close();
+    }
+
     @Test
     public void testBankSupportedVersions() throws Exception {
         try {
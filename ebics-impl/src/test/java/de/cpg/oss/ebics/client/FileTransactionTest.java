@@ -0,0 +1,226 @@
+package de.cpg.oss.ebics.client;
+
+import de.cpg.oss.ebics.TestUtil;
+import de.cpg.oss.ebics.api.*;
+import de.cpg.oss.ebics.utils.IOUtil;
+import de.cpg.oss.ebics.utils.XmlUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.ebics.h004.EbicsRequest;
+import org.ebics.h004.MutableHeaderType;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Security;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileTransactionTest {
+
+    private static final String OK_RESPONSE = "<ebicsResponse xmlns=\"urn:org:ebics:H004\" Version=\"H004\" Revision=\"1\">"
+            + "<header authenticate=\"true\">"
+            + "<static><TransactionID>0123456789ABCDEF0123456789ABCDEF</TransactionID></static>"
+            + "<mutable><TransactionPhase>Transfer</TransactionPhase>"
+            + "<ReturnCode>000000</ReturnCode><ReportText>[EBICS_OK] OK</ReportText></mutable>"
+            + "</header>"
+            + "<body><ReturnCode authenticate=\"true\">000000</ReturnCode></body>"
+            + "</ebicsResponse>";
+
+    private static final String RECEIPT_RESPONSE = OK_RESPONSE
+            .replace("<TransactionPhase>Transfer</TransactionPhase>", "<TransactionPhase>Receipt</TransactionPhase>")
+            .replace("<ReturnCode>000000</ReturnCode><ReportText>[EBICS_OK] OK</ReportText>",
+                    "<ReturnCode>011000</ReturnCode><ReportText>[EBICS_DOWNLOAD_POSTPROCESS_DONE]</ReportText>");
+
+    private static final String SEGMENT_RESPONSE = "<ebicsResponse xmlns=\"urn:org:ebics:H004\" Version=\"H004\" Revision=\"1\">"
+            + "<header authenticate=\"true\">"
+            + "<static><TransactionID>0123456789ABCDEF0123456789ABCDEF</TransactionID></static>"
+            + "<mutable><TransactionPhase>Transfer</TransactionPhase>"
+            + "<SegmentNumber lastSegment=\"{1}\">{0}</SegmentNumber>"
+            + "<ReturnCode>000000</ReturnCode><ReportText>[EBICS_OK] OK</ReportText></mutable>"
+            + "</header>"
+            + "<body><DataTransfer><OrderData>{2}</OrderData></DataTransfer>"
+            + "<ReturnCode authenticate=\"true\">000000</ReturnCode></body>"
+            + "</ebicsResponse>";
+
+    private final ExecutorService bank = Executors.newFixedThreadPool(8);
+
+    @BeforeClass
+    public static void initSecurity() {
+        Security.addProvider(new BouncyCastleProvider());
+        org.apache.xml.security.Init.init();
+    }
+
+    @After
+    public void shutdownBank() {
+        bank.shutdown();
+    }
+
+    @Test
+    public void testPipelinedUpload() throws Exception {
+        final RecordingTransport transport = new RecordingTransport();
+        final AtomicInteger prepared = new AtomicInteger();
+        final EbicsSession session = TestUtil.createEbicsSession()
+                .withConfiguration(new EbicsConfiguration()
+                        .withMaxSegmentsInFlight(3)
+                        .withExecutor(runnable -> {
+                            prepared.incrementAndGet();
+                            bank.execute(runnable);
+                        }))
+                .withTransport(transport);
+
+        final FileTransfer fileTransfer = session.getFileTransferManager().createUploadTransaction(
+                OrderType.CCT, IOUtil.wrap(randomContent(FileTransferManager.BLOCK_SIZE * 8)));
+        assertThat(fileTransfer.getNumSegments()).isGreaterThan(3);
+
+        final FileTransfer uploaded = FileTransaction.uploadFile(session, fileTransfer);
+
+        assertThat(uploaded.getSegmentNumber()).isEqualTo(fileTransfer.getNumSegments());
+        assertThat(transport.segments).hasSize(fileTransfer.getNumSegments());
+        assertThat(transport.segments.get(transport.segments.size() - 1))
+                .isEqualTo(fileTransfer.getNumSegments());
+        assertThat(transport.maxInFlight.get()).isBetween(2, 3);
+        assertThat(prepared.get()).isEqualTo(fileTransfer.getNumSegments());
+    }
+
+    @Test
+    public void testSequentialUpload() throws Exception {
+        final RecordingTransport transport = new RecordingTransport();
+        final EbicsSession session = TestUtil.createEbicsSession().withTransport(transport);
+
+        final FileTransfer fileTransfer = session.getFileTransferManager().createUploadTransaction(
+                OrderType.CCT, IOUtil.wrap(randomContent(FileTransferManager.BLOCK_SIZE * 4)));
+
+        FileTransaction.uploadFile(session, fileTransfer);
+
+        assertThat(transport.maxInFlight.get()).isEqualTo(1);
+        for (int i = 0; i < transport.segments.size(); i++) {
+            assertThat(transport.segments.get(i)).isEqualTo(i + 1);
+        }
+    }
+
+    @Test
+    public void testDownloadDecodesWhileFetching() throws Exception {
+        final EbicsSession uploadSession = TestUtil.createEbicsSession();
+        final byte[] content = randomContent(FileTransferManager.BLOCK_SIZE * 4);
+        final FileTransfer upload = uploadSession.getFileTransferManager().createUploadTransaction(
+                OrderType.CCT, IOUtil.wrap(content));
+        final List<byte[]> segments = new ArrayList<>();
+        for (FileTransfer segment = upload.withSegmentNumber(1); ; segment = segment.next()) {
+            segments.add(uploadSession.getFileTransferManager().loadSegment(segment).getContent());
+            if (!segment.hasNext()) {
+                break;
+            }
+        }
+
+        final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        final DownloadingTransport transport = new DownloadingTransport(segments, sink);
+        final EbicsSession session = uploadSession.withTransport(transport);
+        final FileTransfer transaction = session.getFileTransferManager().createDownloadTransaction(
+                OrderType.STA, segments.size(), upload.getNonce(), new byte[16]);
+        session.getFileTransferManager().saveSegment(transaction, segments.get(0));
+
+        final FileTransfer downloaded = FileTransaction.downloadFile(session, transaction, () -> sink);
+
+        assertThat(downloaded.hasNext()).isFalse();
+        assertThat(transport.writtenBeforeLastSegment.get()).isGreaterThan(0);
+        assertThat(sink.toByteArray()).isEqualTo(content);
+    }
+
+    private class DownloadingTransport implements EbicsTransport {
+
+        private final List<byte[]> segments;
+        private final ByteArrayOutputStream sink;
+        private final AtomicInteger writtenBeforeLastSegment = new AtomicInteger();
+
+        private DownloadingTransport(final List<byte[]> segments, final ByteArrayOutputStream sink) {
+            this.segments = segments;
+            this.sink = sink;
+        }
+
+        @Override
+        public InputStream send(final EbicsBank ebicsBank, final byte[] request) {
+            return IOUtil.wrap(RECEIPT_RESPONSE.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public CompletableFuture<InputStream> sendAsync(final EbicsBank ebicsBank, final byte[] request) {
+            final MutableHeaderType mutable = XmlUtil.parse(EbicsRequest.class, IOUtil.wrap(request))
+                    .getHeader().getMutable();
+            if (null == mutable.getSegmentNumber()) {
+                return CompletableFuture.completedFuture(send(ebicsBank, request));
+            }
+
+            final int segmentNumber = mutable.getSegmentNumber().getValue().getValue().intValue();
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (segmentNumber == segments.size()) {
+                    writtenBeforeLastSegment.set(sink.size());
+                }
+                return IOUtil.wrap(MessageFormat.format(SEGMENT_RESPONSE, segmentNumber,
+                        segmentNumber == segments.size(),
+                        Base64.getEncoder().encodeToString(segments.get(segmentNumber - 1)))
+                        .getBytes(StandardCharsets.UTF_8));
+            }, bank);
+        }
+    }
+
+    private class RecordingTransport implements EbicsTransport {
+
+        private final List<Integer> segments = new CopyOnWriteArrayList<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public InputStream send(final EbicsBank ebicsBank, final byte[] request) {
+            return IOUtil.wrap(OK_RESPONSE.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public CompletableFuture<InputStream> sendAsync(final EbicsBank ebicsBank, final byte[] request) {
+            final MutableHeaderType mutable = XmlUtil.parse(EbicsRequest.class, IOUtil.wrap(request))
+                    .getHeader().getMutable();
+            if (null == mutable.getSegmentNumber()) {
+                return CompletableFuture.completedFuture(send(ebicsBank, request));
+            }
+
+            final int segmentNumber = mutable.getSegmentNumber().getValue().getValue().intValue();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(500);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                segments.add(segmentNumber);
+                inFlight.decrementAndGet();
+                return send(ebicsBank, request);
+            }, bank);
+        }
+    }
+
+    private static byte[] randomContent(final int length) {
+        final Random random = new Random(42);
+        final byte[] content = new byte[length];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('A' + random.nextInt(58));
+        }
+        return content;
+    }
+}
@@ -0,0 +1,87 @@
+package de.cpg.oss.ebics.client;
+
+import de.cpg.oss.ebics.utils.CryptoUtil;
+import de.cpg.oss.ebics.utils.IOUtil;
+import de.cpg.oss.ebics.utils.ZipUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SegmentDecoderTest {
+
+    private final byte[] nonce = CryptoUtil.generateNonce();
+    private final ClosingSink sink = new ClosingSink();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final SegmentDecoder decoder = new SegmentDecoder(nonce, () -> sink, executor);
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testDecodesSegmentsInOrder() throws Exception {
+        final byte[] orderData = "<Document>order data</Document>".getBytes(StandardCharsets.UTF_8);
+        final byte[] encoded = IOUtil.read(CryptoUtil.encryptAES(ZipUtil.compress(IOUtil.wrap(orderData)), nonce));
+
+        decoder.decode(() -> Arrays.copyOfRange(encoded, 0, 16));
+        decoder.decode(() -> Arrays.copyOfRange(encoded, 16, encoded.length));
+        decoder.finish().join();
+
+        assertThat(sink.toByteArray()).isEqualTo(orderData);
+        assertThat(sink.closed).isTrue();
+    }
+
+    @Test
+    public void testClosesSinkAfterCorruptSegment() throws Exception {
+        final byte[] corrupt = new byte[64];
+        new Random(42).nextBytes(corrupt);
+
+        decoder.decode(() -> corrupt);
+        decoder.decode(() -> corrupt);
+
+        assertThatThrownBy(() -> decoder.finish().join()).isInstanceOf(CompletionException.class);
+        assertThat(sink.closed).isTrue();
+    }
+
+    @Test
+    public void testClosesSinkAfterFailedSegmentLoad() throws Exception {
+        decoder.decode(() -> new byte[16]);
+        decoder.decode(() -> {
+            throw new IllegalStateException("Segment not found");
+        });
+
+        assertThatThrownBy(() -> decoder.finish().join())
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+        assertThat(sink.closed).isTrue();
+    }
+
+    @Test
+    public void testAbortClosesSink() throws Exception {
+        decoder.decode(() -> new byte[16]);
+        decoder.abort().join();
+
+        assertThat(sink.closed).isTrue();
+    }
+
+    private static final class ClosingSink extends ByteArrayOutputStream {
+
+        private boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package de.cpg.oss.ebics.session;
+
+import com.sun.net.httpserver.HttpServer;
+import de.cpg.oss.ebics.api.EbicsBank;
+import de.cpg.oss.ebics.utils.IOUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncHttpTransportTest {
+
+    private HttpServer server;
+    private EbicsBank bank;
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/ebics", exchange -> {
+            final byte[] request = IOUtil.read(exchange.getRequestBody());
+            exchange.sendResponseHeaders(200, request.length);
+            try (final OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(request);
+            }
+        });
+        server.start();
+        bank = EbicsBank.builder()
+                .hostId("HOSTID")
+                .uri("http://localhost:" + server.getAddress().getPort() + "/ebics")
+                .build();
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void testConcurrentSends() throws Exception {
+        try (final AsyncHttpTransport transport = AsyncHttpTransport.builder().ioThreads(1).build()) {
+            final List<CompletableFuture<InputStream>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                responses.add(transport.sendAsync(bank, ("<request" + i + "/>").getBytes("UTF-8")));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                try (final InputStream response = responses.get(i).get()) {
+                    assertThat(new String(IOUtil.read(response), "UTF-8")).isEqualTo("<request" + i + "/>");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConnectionRefused() throws Exception {
+        try (final AsyncHttpTransport transport = new AsyncHttpTransport()) {
+            transport.sendAsync(bank.withUri("http://localhost:4711"), new byte[0]).get();
+            throw new IllegalStateException("Expected send to fail");
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(ConnectException.class);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.api.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CachingPersistenceProviderTest {
+
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(1);
+
+    private final CountingPersistenceProvider delegate = new CountingPersistenceProvider();
+    private final MutableClock clock = new MutableClock();
+    private final PersistenceProvider persistenceProvider = new CachingPersistenceProvider(
+            delegate, 2, TIME_TO_LIVE, clock, EbicsUser.class, EbicsBank.class);
+
+    @Test
+    public void testLoadsOnce() throws Exception {
+        delegate.save(EbicsUser.class, user("USER"));
+
+        final EbicsUser loaded = persistenceProvider.load(EbicsUser.class, "USER");
+        assertThat(persistenceProvider.load(EbicsUser.class, "USER")).isSameAs(loaded);
+        assertThat(delegate.loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExpiresAfterTimeToLive() throws Exception {
+        delegate.save(EbicsUser.class, user("USER"));
+
+        persistenceProvider.load(EbicsUser.class, "USER");
+        clock.advance(TIME_TO_LIVE.minusMillis(1));
+        persistenceProvider.load(EbicsUser.class, "USER");
+        assertThat(delegate.loads.get()).isEqualTo(1);
+
+        clock.advance(Duration.ofMillis(1));
+        persistenceProvider.load(EbicsUser.class, "USER");
+        assertThat(delegate.loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        delegate.save(EbicsUser.class, user("USER1"));
+        delegate.save(EbicsUser.class, user("USER2"));
+        delegate.save(EbicsUser.class, user("USER3"));
+        persistenceProvider.load(EbicsUser.class, "USER1");
+        persistenceProvider.load(EbicsUser.class, "USER2");
+        persistenceProvider.load(EbicsUser.class, "USER1");
+        persistenceProvider.load(EbicsUser.class, "USER3");
+
+        persistenceProvider.load(EbicsUser.class, "USER1");
+        persistenceProvider.load(EbicsUser.class, "USER3");
+        assertThat(delegate.loads.get()).isEqualTo(3);
+
+        persistenceProvider.load(EbicsUser.class, "USER2");
+        assertThat(delegate.loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testWritesThrough() throws Exception {
+        final EbicsUser user = user("USER");
+        persistenceProvider.save(EbicsUser.class, user);
+        persistenceProvider.saveAll(new UnitOfWork().save(EbicsUser.class, user.withStatus(UserStatus.INITIALIZED)));
+
+        assertThat(delegate.load(EbicsUser.class, "USER").getStatus()).isEqualTo(UserStatus.INITIALIZED);
+        assertThat(persistenceProvider.load(EbicsUser.class, "USER").getStatus()).isEqualTo(UserStatus.INITIALIZED);
+        assertThat(persistenceProvider.load(EbicsUser.class, "USER").getStatus()).isEqualTo(UserStatus.INITIALIZED);
+        assertThat(delegate.loads.get()).isEqualTo(2);
+
+        assertThat(persistenceProvider.delete(EbicsUser.class, "USER")).isTrue();
+        assertThatThrownBy(() -> persistenceProvider.load(EbicsUser.class, "USER")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testSaveEvictsCachedObject() throws Exception {
+        delegate.save(EbicsUser.class, user("USER"));
+        persistenceProvider.load(EbicsUser.class, "USER");
+
+        persistenceProvider.save(EbicsUser.class, user("USER").withStatus(UserStatus.INITIALIZED));
+
+        assertThat(persistenceProvider.load(EbicsUser.class, "USER").getStatus()).isEqualTo(UserStatus.INITIALIZED);
+        assertThat(delegate.loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentSavesDoNotCacheOlderObject() throws Exception {
+        final CountDownLatch newSaved = new CountDownLatch(1);
+        final CountDownLatch initializedSaved = new CountDownLatch(1);
+        final PersistenceProvider store = new InMemoryPersistenceProvider();
+        final PersistenceProvider racingProvider = new CachingPersistenceProvider(new PersistenceProvider() {
+            @Override
+            public <T extends Identifiable> T save(final Class<T> clazz, final T object) throws IOException {
+                final T saved = store.save(clazz, object);
+                if (((EbicsUser) object).getStatus() == UserStatus.NEW) {
+                    // Let the newer save overtake this one right after the store was written
+                    newSaved.countDown();
+                    await(initializedSaved);
+                }
+                return saved;
+            }
+
+            @Override
+            public <T extends Identifiable> T load(final Class<T> clazz, final String id) throws IOException {
+                return store.load(clazz, id);
+            }
+
+            @Override
+            public boolean delete(final Identifiable identifiable) throws IOException {
+                return store.delete(identifiable);
+            }
+
+            @Override
+            public <T extends Identifiable> boolean delete(final Class<T> clazz, final String id) throws IOException {
+                return store.delete(clazz, id);
+            }
+        }, 2, TIME_TO_LIVE, clock, EbicsUser.class);
+
+        final Thread olderSave = new Thread(() -> {
+            try {
+                racingProvider.save(EbicsUser.class, user("USER"));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        olderSave.start();
+        await(newSaved);
+        racingProvider.save(EbicsUser.class, user("USER").withStatus(UserStatus.INITIALIZED));
+        initializedSaved.countDown();
+        olderSave.join();
+
+        assertThat(racingProvider.load(EbicsUser.class, "USER").getStatus()).isEqualTo(UserStatus.INITIALIZED);
+    }
+
+    @Test
+    public void testKeepsTypesApart() throws Exception {
+        persistenceProvider.save(EbicsUser.class, user("ID"));
+        assertThatThrownBy(() -> persistenceProvider.load(EbicsBank.class, "ID")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testPassesOtherTypesThrough() throws Exception {
+        final FileTransferSegment segment = FileTransferSegment.valueOf(UUID.randomUUID(), new byte[]{1, 2, 3});
+        persistenceProvider.save(FileTransferSegment.class, segment);
+
+        persistenceProvider.load(FileTransferSegment.class, segment.getId());
+        persistenceProvider.load(FileTransferSegment.class, segment.getId());
+        assertThat(delegate.loads.get()).isEqualTo(2);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static EbicsUser user(final String userId) {
+        return EbicsUser.builder().userId(userId).status(UserStatus.NEW).build();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant = Instant.now();
+
+        void advance(final Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
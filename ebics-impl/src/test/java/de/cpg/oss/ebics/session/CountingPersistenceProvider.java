@@ -0,0 +1,53 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.api.Identifiable;
+import de.cpg.oss.ebics.api.PersistenceProvider;
+import de.cpg.oss.ebics.api.UnitOfWork;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fresh {@link InMemoryPersistenceProvider} counting the calls it receives, to be wrapped by the decorators under
+ * test. Only calls that succeed are counted.
+ */
+final class CountingPersistenceProvider implements PersistenceProvider {
+
+    final AtomicInteger saves = new AtomicInteger();
+    final AtomicInteger saveAlls = new AtomicInteger();
+    final AtomicInteger loads = new AtomicInteger();
+    final AtomicInteger deletes = new AtomicInteger();
+
+    private final PersistenceProvider store = new InMemoryPersistenceProvider();
+
+    @Override
+    public <T extends Identifiable> T save(final Class<T> clazz, final T object) throws IOException {
+        final T saved = store.save(clazz, object);
+        saves.incrementAndGet();
+        return saved;
+    }
+
+    @Override
+    public void saveAll(final UnitOfWork unitOfWork) throws IOException {
+        unitOfWork.saveEach(this);
+        saveAlls.incrementAndGet();
+    }
+
+    @Override
+    public <T extends Identifiable> T load(final Class<T> clazz, final String id) throws IOException {
+        final T loaded = store.load(clazz, id);
+        loads.incrementAndGet();
+        return loaded;
+    }
+
+    @Override
+    public boolean delete(final Identifiable identifiable) throws IOException {
+        return delete(identifiable.getClass(), identifiable.getId());
+    }
+
+    @Override
+    public <T extends Identifiable> boolean delete(final Class<T> clazz, final String id) throws IOException {
+        deletes.incrementAndGet();
+        return store.delete(clazz, id);
+    }
+}
@@ -0,0 +1,145 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.api.EbicsSignatureKey;
+import de.cpg.oss.ebics.api.FileTransfer;
+import de.cpg.oss.ebics.api.FileTransferManager;
+import de.cpg.oss.ebics.api.OrderType;
+import de.cpg.oss.ebics.api.SignatureVersion;
+import de.cpg.oss.ebics.utils.CryptoUtil;
+import de.cpg.oss.ebics.utils.IOUtil;
+import de.cpg.oss.ebics.utils.KeyUtil;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.KeyPair;
+import java.security.Security;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DefaultFileTransferManagerTest {
+
+    private final FileTransferManager fileTransferManager =
+            new DefaultFileTransferManager(InMemoryPersistenceProvider.INSTANCE);
+
+    @BeforeClass
+    public static void registerBouncyCastleProvider() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testMultiSegmentRoundTrip() throws Exception {
+        final byte[] content = randomContent(FileTransferManager.BLOCK_SIZE * 4);
+
+        final FileTransfer fileTransfer = fileTransferManager.createUploadTransaction(
+                OrderType.CCT, IOUtil.wrap(content));
+        assertThat(fileTransfer.getNumSegments()).isGreaterThan(1);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertThat(fileTransferManager.finalizeDownloadTransaction(fileTransfer, output)).isTrue();
+
+        assertThat(output.toByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    public void testUploadSegmentSizes() throws Exception {
+        final FileTransfer fileTransfer = fileTransferManager.createUploadTransaction(
+                OrderType.CCT, IOUtil.wrap(randomContent(FileTransferManager.BLOCK_SIZE * 4)));
+
+        FileTransfer current = fileTransfer;
+        while (current.hasNext()) {
+            current = current.next();
+            final int segmentLength = fileTransferManager.loadSegment(current).getContent().length;
+            if (current.isLastSegment()) {
+                assertThat(segmentLength).isBetween(1, FileTransferManager.BLOCK_SIZE);
+            } else {
+                assertThat(segmentLength).isEqualTo(FileTransferManager.BLOCK_SIZE);
+            }
+        }
+
+        assertThat(fileTransferManager.finalizeUploadTransaction(fileTransfer)).isTrue();
+    }
+
+    @Test
+    public void testUploadReadsInputOnce() throws Exception {
+        final byte[] content = randomContent(FileTransferManager.BLOCK_SIZE * 2);
+        final AtomicLong bytesRead = new AtomicLong();
+        final InputStream input = new FilterInputStream(IOUtil.wrap(content)) {
+            @Override
+            public int read() throws IOException {
+                final int next = super.read();
+                bytesRead.addAndGet(next == -1 ? 0 : 1);
+                return next;
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                final int n = super.read(b, off, len);
+                bytesRead.addAndGet(Math.max(n, 0));
+                return n;
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+
+        final FileTransfer fileTransfer = fileTransferManager.createUploadTransaction(OrderType.CCT, input);
+        assertThat(bytesRead.get()).isEqualTo(content.length);
+
+        final KeyPair keyPair = KeyUtil.createRsaKeyPair(KeyUtil.EBICS_KEY_SIZE);
+        final EbicsSignatureKey signatureKey = EbicsSignatureKey.builder()
+                .privateKey(keyPair.getPrivate())
+                .publicKey(keyPair.getPublic())
+                .creationTime(Instant.now())
+                .digest(KeyUtil.getKeyDigest(keyPair.getPublic()))
+                .version(SignatureVersion.A005)
+                .build();
+        assertThat(CryptoUtil.signHash(fileTransfer.getDigest(), signatureKey))
+                .isEqualTo(CryptoUtil.signMessage(IOUtil.wrap(content), signatureKey));
+
+        assertThat(fileTransferManager.finalizeUploadTransaction(fileTransfer)).isTrue();
+    }
+
+    @Test
+    public void testFailedUploadDeletesSavedSegments() throws Exception {
+        final CountingPersistenceProvider persistenceProvider = new CountingPersistenceProvider();
+        final byte[] content = new byte[FileTransferManager.BLOCK_SIZE * 4];
+        new Random(42).nextBytes(content);
+        final InputStream input = new FilterInputStream(IOUtil.wrap(content)) {
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                final int read = super.read(b, off, len);
+                if (read < 0) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+        };
+
+        assertThatThrownBy(() -> new DefaultFileTransferManager(persistenceProvider)
+                .createUploadTransaction(OrderType.CCT, input))
+                .hasRootCauseInstanceOf(IOException.class);
+
+        assertThat(persistenceProvider.saves.get()).isGreaterThanOrEqualTo(3);
+        assertThat(persistenceProvider.deletes.get()).isEqualTo(persistenceProvider.saves.get());
+    }
+
+    private static byte[] randomContent(final int length) {
+        final Random random = new Random(42);
+        final byte[] content = new byte[length];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('A' + random.nextInt(58));
+        }
+        return content;
+    }
+}
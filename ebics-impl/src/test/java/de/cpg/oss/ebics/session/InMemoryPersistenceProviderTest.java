@@ -0,0 +1,91 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.TestUtil;
+import de.cpg.oss.ebics.api.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InMemoryPersistenceProviderTest {
+
+    @Test
+    public void testKeepsTypesApart() throws Exception {
+        final PersistenceProvider persistenceProvider = new InMemoryPersistenceProvider();
+        final EbicsBank bank = EbicsBank.builder().hostId("ID").uri("http://example.org").build();
+        final EbicsUser user = EbicsUser.builder().userId("ID").status(UserStatus.NEW).build();
+        persistenceProvider.save(EbicsBank.class, bank);
+        persistenceProvider.save(EbicsUser.class, user);
+
+        assertThat(persistenceProvider.load(EbicsBank.class, "ID")).isSameAs(bank);
+        assertThat(persistenceProvider.load(EbicsUser.class, "ID")).isSameAs(user);
+
+        assertThat(persistenceProvider.delete(user)).isTrue();
+        assertThat(persistenceProvider.load(EbicsBank.class, "ID")).isSameAs(bank);
+        assertThatThrownBy(() -> persistenceProvider.load(EbicsUser.class, "ID")).isInstanceOf(IOException.class);
+    }
+
+    @Test(timeout = 10_000)
+    public void testConcurrentSavesOfSameIds() throws Exception {
+        final PersistenceProvider persistenceProvider = new InMemoryPersistenceProvider();
+        final int threads = 4;
+        final int ids = 1_000;
+        TestUtil.runConcurrently(threads, thread -> {
+            for (int n = 0; n < ids; n++) {
+                final String id = Integer.toString(n);
+                if (thread % 2 == 0) {
+                    persistenceProvider.save(EbicsUser.class,
+                            EbicsUser.builder().userId(id).status(UserStatus.NEW).build());
+                } else {
+                    persistenceProvider.save(EbicsBank.class,
+                            EbicsBank.builder().hostId(id).uri("http://example.org").build());
+                }
+            }
+            return null;
+        });
+
+        for (int n = 0; n < ids; n++) {
+            final String id = Integer.toString(n);
+            assertThat(persistenceProvider.load(EbicsUser.class, id).getUserId()).isEqualTo(id);
+            assertThat(persistenceProvider.load(EbicsBank.class, id).getHostId()).isEqualTo(id);
+        }
+    }
+
+    @Test
+    public void testMaxObjectsPerType() throws Exception {
+        final PersistenceProvider persistenceProvider = new InMemoryPersistenceProvider(1);
+        final EbicsUser user = EbicsUser.builder().userId("USER1").status(UserStatus.NEW).build();
+        persistenceProvider.save(EbicsUser.class, user);
+        persistenceProvider.save(EbicsUser.class, user.withStatus(UserStatus.INITIALIZED));
+        persistenceProvider.save(EbicsPartner.class, EbicsPartner.builder().partnerId("PARTNER").build());
+
+        assertThatThrownBy(() -> persistenceProvider.save(EbicsUser.class,
+                EbicsUser.builder().userId("USER2").status(UserStatus.NEW).build()))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testDeletingTransferDropsSegments() throws Exception {
+        final PersistenceProvider persistenceProvider = new InMemoryPersistenceProvider();
+        final FileTransfer fileTransfer = FileTransfer.builder()
+                .orderType(OrderType.CCT)
+                .numSegments(2)
+                .nonce(new byte[16])
+                .transferId(UUID.randomUUID())
+                .build();
+        persistenceProvider.save(FileTransfer.class, fileTransfer);
+        for (int segmentNumber = 1; segmentNumber <= 2; segmentNumber++) {
+            persistenceProvider.save(FileTransferSegment.class,
+                    FileTransferSegment.valueOf(fileTransfer.getSegmentId(segmentNumber), new byte[]{1}));
+        }
+
+        assertThat(persistenceProvider.delete(fileTransfer)).isTrue();
+        assertThatThrownBy(() -> persistenceProvider.load(FileTransferSegment.class,
+                fileTransfer.getSegmentId(1).toString())).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> persistenceProvider.load(FileTransferSegment.class,
+                fileTransfer.getSegmentId(2).toString())).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,70 @@
+package de.cpg.oss.ebics.session;
+
+import com.sun.net.httpserver.HttpServer;
+import de.cpg.oss.ebics.api.EbicsBank;
+import de.cpg.oss.ebics.utils.IOUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PooledHttpTransportTest {
+
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<>());
+    private HttpServer server;
+    private EbicsBank bank;
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ebics", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            final byte[] request = IOUtil.read(exchange.getRequestBody());
+            final int status = "fail".equals(new String(request, "UTF-8")) ? 500 : 200;
+            exchange.sendResponseHeaders(status, request.length);
+            try (final OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(request);
+            }
+        });
+        server.start();
+        bank = EbicsBank.builder()
+                .hostId("HOSTID")
+                .uri("http://localhost:" + server.getAddress().getPort() + "/ebics")
+                .build();
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void testConnectionReuse() throws Exception {
+        try (final PooledHttpTransport transport = PooledHttpTransport.builder().maxConnectionsPerBank(1).build()) {
+            for (int i = 0; i < 5; i++) {
+                final byte[] request = ("<segment" + i + "/>").getBytes("UTF-8");
+                try (final InputStream response = transport.send(bank, request)) {
+                    assertThat(IOUtil.read(response)).isEqualTo(request);
+                }
+            }
+        }
+
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test(expected = IOException.class)
+    public void testHttpError() throws Exception {
+        try (final PooledHttpTransport transport = new PooledHttpTransport()) {
+            transport.send(bank, "fail".getBytes("UTF-8"));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.api.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class WriteBehindPersistenceProviderTest {
+
+    private final CountingPersistenceProvider delegate = new CountingPersistenceProvider();
+    private final GatedPersistenceProvider gate = new GatedPersistenceProvider(delegate);
+    private final PersistenceProvider persistenceProvider = new WriteBehindPersistenceProvider(gate);
+
+    @Test
+    public void testCoalescesRepeatedSaves() throws Exception {
+        final EbicsUser user = EbicsUser.builder().userId("USER").status(UserStatus.NEW).build();
+        persistenceProvider.save(EbicsUser.class, user);
+        persistenceProvider.save(EbicsUser.class, user.withStatus(UserStatus.PARTLY_INITIALIZED_INI));
+        persistenceProvider.saveAll(new UnitOfWork()
+                .save(EbicsUser.class, user.withStatus(UserStatus.INITIALIZED))
+                .save(EbicsPartner.class, EbicsPartner.builder().partnerId("PARTNER").build()));
+
+        assertThat(delegate.saves.get()).isZero();
+        assertThat(persistenceProvider.load(EbicsUser.class, "USER").getStatus()).isEqualTo(UserStatus.INITIALIZED);
+
+        persistenceProvider.flush();
+        persistenceProvider.flush();
+
+        assertThat(delegate.saveAlls.get()).isEqualTo(1);
+        assertThat(delegate.saves.get()).isEqualTo(2);
+        assertThat(delegate.load(EbicsUser.class, "USER").getStatus()).isEqualTo(UserStatus.INITIALIZED);
+    }
+
+    @Test
+    public void testPassesOtherTypesThrough() throws Exception {
+        final FileTransferSegment segment = FileTransferSegment.valueOf(UUID.randomUUID(), new byte[]{1, 2, 3});
+        persistenceProvider.save(FileTransferSegment.class, segment);
+        final FileTransferSegment produced = FileTransferSegment.valueOf(UUID.randomUUID(), new byte[]{4, 5, 6});
+        persistenceProvider.saveAll(FileTransferSegment.class, sink -> sink.save(produced));
+
+        assertThat(delegate.saves.get()).isEqualTo(2);
+        assertThat(delegate.load(FileTransferSegment.class, segment.getId())).isSameAs(segment);
+        assertThat(delegate.load(FileTransferSegment.class, produced.getId())).isSameAs(produced);
+    }
+
+    @Test
+    public void testDeleteDropsDeferredSave() throws Exception {
+        final EbicsBank bank = EbicsBank.builder().hostId("HOSTID").uri("http://example.org").build();
+        persistenceProvider.save(EbicsBank.class, bank);
+
+        assertThat(persistenceProvider.delete(bank)).isTrue();
+        persistenceProvider.flush();
+
+        assertThat(delegate.saves.get()).isZero();
+        assertThat(delegate.deletes.get()).isZero();
+    }
+
+    @Test
+    public void testDeleteRemovesFlushedObject() throws Exception {
+        final EbicsBank bank = EbicsBank.builder().hostId("HOSTID").uri("http://example.org").build();
+        persistenceProvider.save(EbicsBank.class, bank);
+        persistenceProvider.flush();
+        persistenceProvider.save(EbicsBank.class, bank.withName("Testbank"));
+
+        assertThat(persistenceProvider.delete(bank)).isTrue();
+
+        assertThat(delegate.deletes.get()).isEqualTo(1);
+        assertThatThrownBy(() -> persistenceProvider.load(EbicsBank.class, "HOSTID")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testFailedFlushKeepsDeferredSaves() throws Exception {
+        final EbicsUser user = EbicsUser.builder().userId("USER").status(UserStatus.NEW).build();
+        persistenceProvider.save(EbicsUser.class, user);
+        gate.beforeSaveAll = () -> {
+            throw new IOException("Store unavailable");
+        };
+
+        assertThatThrownBy(persistenceProvider::flush).isInstanceOf(IOException.class);
+        assertThat(persistenceProvider.load(EbicsUser.class, "USER")).isSameAs(user);
+
+        gate.beforeSaveAll = () -> {
+        };
+        persistenceProvider.flush();
+        assertThat(delegate.load(EbicsUser.class, "USER")).isSameAs(user);
+    }
+
+    @Test(timeout = 10_000)
+    public void testDoesNotBlockWhileFlushing() throws Exception {
+        final EbicsUser user = EbicsUser.builder().userId("USER").status(UserStatus.NEW).build();
+        persistenceProvider.save(EbicsUser.class, user);
+        final CountDownLatch flushing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        gate.beforeSaveAll = () -> {
+            flushing.countDown();
+            release.await();
+        };
+
+        final CompletableFuture<Void> flush = CompletableFuture.runAsync(() -> {
+            try {
+                persistenceProvider.flush();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        flushing.await();
+
+        final FileTransferSegment segment = FileTransferSegment.valueOf(UUID.randomUUID(), new byte[]{1, 2, 3});
+        persistenceProvider.save(FileTransferSegment.class, segment);
+        assertThat(persistenceProvider.load(FileTransferSegment.class, segment.getId())).isSameAs(segment);
+        assertThat(persistenceProvider.load(EbicsUser.class, "USER")).isSameAs(user);
+        persistenceProvider.save(EbicsUser.class, user.withStatus(UserStatus.INITIALIZED));
+
+        release.countDown();
+        flush.join();
+        assertThat(persistenceProvider.load(EbicsUser.class, "USER").getStatus()).isEqualTo(UserStatus.INITIALIZED);
+    }
+
+    @FunctionalInterface
+    private interface Hook {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs a hook before every unit of work reaches the store, to fail or hold up a flush.
+     */
+    private static final class GatedPersistenceProvider implements PersistenceProvider {
+
+        private final PersistenceProvider delegate;
+        private volatile Hook beforeSaveAll = () -> {
+        };
+
+        private GatedPersistenceProvider(final PersistenceProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T extends Identifiable> T save(final Class<T> clazz, final T object) throws IOException {
+            return delegate.save(clazz, object);
+        }
+
+        @Override
+        public void saveAll(final UnitOfWork unitOfWork) throws IOException {
+            try {
+                beforeSaveAll.run();
+            } catch (final IOException e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new IOException(e);
+            }
+            delegate.saveAll(unitOfWork);
+        }
+
+        @Override
+        public <T extends Identifiable> T load(final Class<T> clazz, final String id) throws IOException {
+            return delegate.load(clazz, id);
+        }
+
+        @Override
+        public boolean delete(final Identifiable identifiable) throws IOException {
+            return delegate.delete(identifiable);
+        }
+
+        @Override
+        public <T extends Identifiable> boolean delete(final Class<T> clazz, final String id) throws IOException {
+            return delegate.delete(clazz, id);
+        }
+    }
+}
@@ -1,18 +1,22 @@
 package de.cpg.oss.ebics.utils;
 
+import de.cpg.oss.ebics.TestUtil;
 import de.cpg.oss.ebics.api.EbicsSignatureKey;
 import de.cpg.oss.ebics.api.SignatureVersion;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.security.KeyPair;
 import java.security.MessageDigest;
 import java.security.Security;
 import java.security.Signature;
 import java.time.Instant;
+import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -35,11 +39,48 @@ public class CryptoUtilTest {
         MESSAGE = "som random test message".getBytes();
     }
 
+    @Test
+    public void testNewDigestIsNotShared() throws Exception {
+        final MessageDigest digest = CryptoUtil.newDigest();
+        digest.update(MESSAGE);
+        KeyUtil.getKeyDigest(RSA_KEY.getPublicKey());
+
+        assertThat(CryptoUtil.newDigest()).isNotSameAs(digest);
+        assertThat(digest.digest()).isEqualTo(MessageDigest.getInstance("SHA-256").digest(MESSAGE));
+    }
+
     @Test
     public void testGenerateNonce() throws Exception {
         assertThat(CryptoUtil.generateNonce()).hasSize(16);
     }
 
+    @Test(timeout = 10_000)
+    public void testGenerateNonceConcurrently() throws Exception {
+        final int threads = 8;
+        final int noncesPerThread = 2_500;
+        final List<List<String>> results = TestUtil.runConcurrently(threads, thread -> {
+            final List<String> nonces = new ArrayList<>(noncesPerThread);
+            for (int n = 0; n < noncesPerThread; n++) {
+                nonces.add(Hex.encodeHexString(CryptoUtil.generateNonce()));
+            }
+            return nonces;
+        });
+
+        final Set<String> nonces = new HashSet<>();
+        results.forEach(nonces::addAll);
+        assertThat(nonces).hasSize(threads * noncesPerThread);
+    }
+
+    @Test
+    public void testReseed() throws Exception {
+        final SharedSecureRandom random = new SharedSecureRandom(SharedSecureRandom.DEFAULT_ALGORITHM, 2);
+        final Set<String> values = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            values.add(Hex.encodeHexString(random.nextBytes(16)));
+        }
+        assertThat(values).hasSize(10);
+    }
+
     @Test
     public void testAEScrypto() throws Exception {
         final byte[] encrypted = IOUtil.read(CryptoUtil.encryptAES(IOUtil.wrap(MESSAGE), AES_KEY));
@@ -49,6 +90,28 @@ public class CryptoUtilTest {
         assertThat(decrypted).isEqualTo(MESSAGE);
     }
 
+    @Test
+    public void testAEScryptoWithInterleavedStreams() throws Exception {
+        final byte[] otherKey = CryptoUtil.generateNonce();
+        final InputStream encrypted = CryptoUtil.encryptAES(IOUtil.wrap(MESSAGE), AES_KEY);
+        final InputStream otherEncrypted = CryptoUtil.encryptAES(IOUtil.wrap(MESSAGE), otherKey);
+
+        final byte[] otherDecrypted = IOUtil.read(CryptoUtil.decryptAES(IOUtil.wrap(IOUtil.read(otherEncrypted)), otherKey));
+        final byte[] decrypted = IOUtil.read(CryptoUtil.decryptAES(IOUtil.wrap(IOUtil.read(encrypted)), AES_KEY));
+
+        assertThat(otherDecrypted).isEqualTo(MESSAGE);
+        assertThat(decrypted).isEqualTo(MESSAGE);
+    }
+
+    @Test
+    public void testRSAcryptoWithChangingKeys() throws Exception {
+        final EbicsSignatureKey otherKey = createSignatureKey(SignatureVersion.A005);
+        for (final EbicsSignatureKey key : Arrays.asList(RSA_KEY, otherKey, RSA_KEY)) {
+            final byte[] encrypted = CryptoUtil.encryptRSA(MESSAGE, key.getPublicKey());
+            assertThat(CryptoUtil.decryptRSA(encrypted, key.getPrivateKey())).isEqualTo(MESSAGE);
+        }
+    }
+
     @Test
     public void testRSAcrypto() throws Exception {
         final byte[] encrypted = CryptoUtil.encryptRSA(MESSAGE, RSA_KEY.getPublicKey());
@@ -84,6 +147,24 @@ public class CryptoUtilTest {
         assertThat(digester.digest()).hasSize(256 / 8);
     }
 
+    @Test
+    public void testDigestRemovesOsSpecificChars() throws Exception {
+        final byte[] message = {'a', '\r', '\n', (byte) 0xFF, 0x1A, (byte) 0x80, '\n', 'b', '\r'};
+        final byte[] expected = {'a', (byte) 0xFF, (byte) 0x80, 'b'};
+
+        final byte[] bulkRead = IOUtil.read(CryptoUtil.digest(IOUtil.wrap(message),
+                MessageDigest.getInstance(CryptoUtil.EBICS_DIGEST_ALGORITHM)));
+        assertThat(bulkRead).isEqualTo(expected);
+
+        final InputStream singleBytes = CryptoUtil.digest(IOUtil.wrap(message),
+                MessageDigest.getInstance(CryptoUtil.EBICS_DIGEST_ALGORITHM));
+        final ByteArrayOutputStream singleByteRead = new ByteArrayOutputStream();
+        for (int next = singleBytes.read(); next != -1; next = singleBytes.read()) {
+            singleByteRead.write(next);
+        }
+        assertThat(singleByteRead.toByteArray()).isEqualTo(expected);
+    }
+
     @Test
     public void testSignHash() throws Exception {
         final byte[] signature = CryptoUtil.signHash(MESSAGE, RSA_KEY);
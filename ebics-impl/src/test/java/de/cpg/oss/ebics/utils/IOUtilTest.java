@@ -3,9 +3,17 @@ package de.cpg.oss.ebics.utils;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class IOUtilTest {
 
@@ -25,4 +33,43 @@ public class IOUtilTest {
 
         assertThat(IOUtil.wrap(data)).hasContentEqualTo(new ByteArrayInputStream(data));
     }
+
+    @Test
+    public void testNewInputStream() throws Exception {
+        final byte[] data = new byte[10_000];
+        new Random(42).nextBytes(data);
+        final Path file = Files.createTempFile("upload", ".dat");
+        try {
+            Files.write(file, data);
+
+            assertThat(IOUtil.read(IOUtil.newInputStream(file))).isEqualTo(data);
+
+            final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            channel.position(1_000);
+            try (final InputStream inputStream = new MappedFileInputStream(channel, 4096)) {
+                assertThat(inputStream.read()).isEqualTo(data[1_000] & 0xFF);
+                assertThat(IOUtil.read(inputStream)).isEqualTo(Arrays.copyOfRange(data, 1_001, data.length));
+            }
+            assertThat(channel.isOpen()).isFalse();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testMappedFileInputStreamUnmapsOnClose() throws Exception {
+        assertThat(MappedFileInputStream.isUnmapSupported()).isTrue();
+
+        final byte[] data = new byte[10_000];
+        new Random(42).nextBytes(data);
+        final Path file = Files.createTempFile("upload", ".dat");
+        Files.write(file, data);
+        final InputStream inputStream =
+                new MappedFileInputStream(FileChannel.open(file, StandardOpenOption.READ), 4096);
+        assertThat(inputStream.read(new byte[5_000])).isEqualTo(4096);
+        inputStream.close();
+
+        Files.delete(file);
+        assertThatThrownBy(inputStream::read).isInstanceOf(IOException.class);
+    }
 }
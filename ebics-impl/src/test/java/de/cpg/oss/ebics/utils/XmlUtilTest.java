@@ -1,19 +1,34 @@
 package de.cpg.oss.ebics.utils;
 
+import de.cpg.oss.ebics.TestUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.ebics.h004.EbicsRequest;
+import org.ebics.h004.EbicsUnsecuredRequest;
 import org.ebics.h004.MutableHeaderType;
 import org.ebics.h004.StaticHeaderType;
 import org.ebics.h004.TransactionPhaseType;
+import org.junit.BeforeClass;
 import org.junit.Test;
+import org.w3c.dom.Document;
 
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.MarshalException;
+import javax.xml.parsers.DocumentBuilderFactory;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @Slf4j
 public class XmlUtilTest {
 
+    @BeforeClass
+    public static void initXmlSecurity() {
+        org.apache.xml.security.Init.init();
+    }
+
     @Test
     public void testPrettyPrint() throws Exception {
         final EbicsRequest request = EbicsRequest.builder()
@@ -36,11 +51,64 @@ public class XmlUtilTest {
                 .hasContentEqualTo(XmlUtilTest.class.getResourceAsStream("/ebicsRequest.xml"));
     }
 
+    @Test
+    public void testCompact() throws Exception {
+        final EbicsRequest request = XmlUtil.parse(
+                EbicsRequest.class,
+                XmlUtilTest.class.getResourceAsStream("/ebicsRequest.xml"));
+
+        final byte[] compact = IOUtil.read(XmlUtil.compact(EbicsRequest.class, request));
+        final byte[] prettyPrinted = IOUtil.read(XmlUtil.prettyPrint(EbicsRequest.class, request));
+
+        assertThat(compact.length).isLessThan(prettyPrinted.length);
+        assertThat(new String(compact, "UTF-8")).doesNotContain(">\n");
+        assertThat(XmlUtil.parse(EbicsRequest.class, IOUtil.wrap(compact)).getHeader().getStatic().getHostID())
+                .isEqualTo("HOSTID");
+    }
+
+    @Test
+    public void testCompactKeepsDigest() throws Exception {
+        final EbicsRequest request = XmlUtil.parse(
+                EbicsRequest.class,
+                XmlUtilTest.class.getResourceAsStream("/ebicsRequest.xml"));
+
+        final byte[] digest = XmlUtil.digest(XmlUtil.toDocument(EbicsRequest.class, request));
+
+        assertThat(XmlUtil.digest(parseDocument(IOUtil.read(XmlUtil.compact(EbicsRequest.class, request)))))
+                .isEqualTo(digest);
+        assertThat(XmlUtil.digest(parseDocument(XmlUtil.serialize(XmlUtil.toDocument(EbicsRequest.class, request)))))
+                .isEqualTo(digest);
+    }
+
     @Test
     public void testValidate() throws Exception {
         XmlUtil.validate(IOUtil.read(XmlUtilTest.class.getResourceAsStream("/ebicsUnsecuredRequest.xml")));
     }
 
+    @Test
+    public void testValidateWhileMarshalling() throws Exception {
+        final EbicsUnsecuredRequest request = XmlUtil.parse(
+                EbicsUnsecuredRequest.class,
+                XmlUtilTest.class.getResourceAsStream("/ebicsUnsecuredRequest.xml"));
+
+        XmlUtil.validate(IOUtil.read(XmlUtil.compact(EbicsUnsecuredRequest.class, request, true)));
+        XmlUtil.toDocument(EbicsUnsecuredRequest.class, request, true);
+    }
+
+    @Test
+    public void testValidateWhileMarshallingRejectsInvalidRequest() throws Exception {
+        final EbicsUnsecuredRequest request = XmlUtil.parse(
+                EbicsUnsecuredRequest.class,
+                XmlUtilTest.class.getResourceAsStream("/ebicsUnsecuredRequest.xml"));
+        request.getHeader().getStatic().setHostID(null);
+
+        XmlUtil.toDocument(EbicsUnsecuredRequest.class, request, false);
+
+        assertThatThrownBy(() -> XmlUtil.toDocument(EbicsUnsecuredRequest.class, request, true))
+                .isInstanceOf(RuntimeException.class)
+                .hasCauseInstanceOf(MarshalException.class);
+    }
+
     @Test
     public void testParse() throws Exception {
         final EbicsRequest ebicsRequest = XmlUtil.parse(
@@ -53,4 +121,39 @@ public class XmlUtilTest {
         assertThat(ebicsRequest.getHeader().getMutable().getTransactionPhase())
                 .isEqualTo(TransactionPhaseType.INITIALISATION);
     }
+
+    @Test
+    public void testConcurrentParse() throws Exception {
+        final byte[] xml = IOUtil.read(XmlUtilTest.class.getResourceAsStream("/ebicsRequest.xml"));
+
+        final List<List<String>> hostIds = TestUtil.runConcurrently(4, thread -> {
+            final List<String> parsed = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                parsed.add(XmlUtil.parse(EbicsRequest.class, IOUtil.wrap(xml)).getHeader().getStatic().getHostID());
+            }
+            return parsed;
+        });
+
+        assertThat(hostIds).hasSize(4);
+        hostIds.forEach(parsed -> assertThat(parsed).hasSize(25).containsOnly("HOSTID"));
+    }
+
+    @Test
+    public void testPreloadContexts() throws Exception {
+        XmlUtil.preloadContexts();
+
+        for (final Class<?> rootType : XmlUtil.ROOT_TYPES) {
+            assertThat(XmlUtil.cachedContext(rootType)).as(rootType.getName()).isNotNull();
+        }
+
+        final JAXBContext preloaded = XmlUtil.cachedContext(EbicsRequest.class);
+        XmlUtil.parse(EbicsRequest.class, XmlUtilTest.class.getResourceAsStream("/ebicsRequest.xml"));
+        assertThat(XmlUtil.cachedContext(EbicsRequest.class)).isSameAs(preloaded);
+    }
+
+    private static Document parseDocument(final byte[] xml) throws Exception {
+        final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        return documentBuilderFactory.newDocumentBuilder().parse(IOUtil.wrap(xml));
+    }
 }
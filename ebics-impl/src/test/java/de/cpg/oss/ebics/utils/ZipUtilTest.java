@@ -3,7 +3,10 @@ package de.cpg.oss.ebics.utils;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -20,4 +23,25 @@ public class ZipUtilTest {
         final byte[] uncompressed = IOUtil.read(ZipUtil.uncompress(compressed));
         assertThat(uncompressed).isEqualTo(input.getBytes());
     }
+
+    @Test
+    public void testCompressionLevels() throws Exception {
+        final byte[] input = new byte[64 * 1024];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) ('a' + i % 7 + i / 4096);
+        }
+
+        for (int level = Deflater.BEST_SPEED; level <= Deflater.BEST_COMPRESSION; level++) {
+            final byte[] compressed = IOUtil.read(ZipUtil.compress(IOUtil.wrap(input), level));
+            assertThat(IOUtil.read(ZipUtil.compress(IOUtil.wrap(input), level))).isEqualTo(compressed);
+
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (final OutputStream compressing = ZipUtil.compress(output, level)) {
+                compressing.write(input);
+            }
+            assertThat(output.toByteArray()).isEqualTo(compressed);
+
+            assertThat(IOUtil.read(ZipUtil.uncompress(IOUtil.wrap(compressed)))).isEqualTo(input);
+        }
+    }
 }
@@ -0,0 +1,126 @@
+package de.cpg.oss.ebics.xml;
+
+import de.cpg.oss.ebics.api.FileTransferManager;
+import de.cpg.oss.ebics.api.exception.ReturnCode;
+import de.cpg.oss.ebics.utils.IOUtil;
+import de.cpg.oss.ebics.utils.XmlUtil;
+import org.ebics.h004.EbicsResponse;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EbicsResponseElementTest {
+
+    @Test
+    public void testStreamedOrderData() throws Exception {
+        final byte[] orderData = randomBytes(300_000);
+        final byte[] transactionKey = randomBytes(256);
+        final byte[] xml = response(Base64.getEncoder().encodeToString(orderData), transactionKey);
+
+        final EbicsResponseElement responseElement = EbicsResponseElement.parse(IOUtil.wrap(xml));
+        final EbicsResponse fullyParsed = XmlUtil.parse(EbicsResponse.class, IOUtil.wrap(xml));
+
+        assertThat(responseElement.getOrderData()).isEqualTo(orderData);
+        assertThat(responseElement.getTransactionKey()).isEqualTo(transactionKey);
+        assertThat(responseElement.getTransactionId()).isEqualTo(fullyParsed.getHeader().getStatic().getTransactionID());
+        assertThat(responseElement.getReturnCode()).isEqualTo(ReturnCode.EBICS_OK);
+        assertThat(responseElement.getBody().getReturnCode().getValue()).isEqualTo("000000");
+        assertThat(responseElement.getResponse().getVersion()).isEqualTo("H004");
+        assertThat(responseElement.getResponse().getRevision()).isEqualTo(1);
+        assertThat(responseElement.getBody().getDataTransfer().getOrderData().getValue()).isNull();
+    }
+
+    @Test
+    public void testOrderDataWithLineBreaks() throws Exception {
+        final byte[] orderData = randomBytes(10_000);
+
+        final EbicsResponseElement responseElement = EbicsResponseElement.parse(IOUtil.wrap(response(
+                Base64.getMimeEncoder().encodeToString(orderData), randomBytes(256))));
+
+        assertThat(responseElement.getOrderData()).isEqualTo(orderData);
+    }
+
+    @Test
+    public void testOrderDataAroundSegmentSize() throws Exception {
+        for (final int length : new int[]{FileTransferManager.BLOCK_SIZE, FileTransferManager.BLOCK_SIZE + 1}) {
+            final byte[] orderData = randomBytes(length);
+
+            final EbicsResponseElement responseElement = EbicsResponseElement.parse(IOUtil.wrap(response(
+                    Base64.getEncoder().encodeToString(orderData), randomBytes(256))));
+
+            assertThat(responseElement.getOrderData()).isEqualTo(orderData);
+        }
+    }
+
+    @Test
+    public void testOrderDataOfLastSegment() throws Exception {
+        for (final int length : new int[]{100, FileTransferManager.BLOCK_SIZE}) {
+            final byte[] orderData = randomBytes(length);
+            final String xml = new String(response(Base64.getEncoder().encodeToString(orderData), randomBytes(256)),
+                    StandardCharsets.UTF_8).replace("lastSegment=\"false\"", "lastSegment=\"true\"");
+
+            final EbicsResponseElement responseElement = EbicsResponseElement.parse(
+                    IOUtil.wrap(xml.getBytes(StandardCharsets.UTF_8)));
+
+            assertThat(responseElement.getOrderData()).isEqualTo(orderData);
+        }
+    }
+
+    @Test
+    public void testWithoutDataTransfer() throws Exception {
+        final EbicsResponseElement responseElement = ReceiptResponseElement.parse(IOUtil.wrap((
+                "<ebicsResponse xmlns=\"urn:org:ebics:H004\" Version=\"H004\" Revision=\"1\">"
+                        + "<header authenticate=\"true\">"
+                        + "<static><TransactionID>0123456789ABCDEF0123456789ABCDEF</TransactionID></static>"
+                        + "<mutable><TransactionPhase>Receipt</TransactionPhase>"
+                        + "<ReturnCode>011000</ReturnCode><ReportText>[EBICS_DOWNLOAD_POSTPROCESS_DONE]</ReportText>"
+                        + "</mutable></header>"
+                        + "<body><ReturnCode authenticate=\"true\">000000</ReturnCode></body>"
+                        + "</ebicsResponse>").getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(responseElement.getReturnCode()).isEqualTo(ReturnCode.EBICS_DOWNLOAD_POSTPROCESS_DONE);
+        assertThat(responseElement.getOrderData()).isNull();
+    }
+
+    private static byte[] response(final String orderData, final byte[] transactionKey) {
+        return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<ebicsResponse xmlns=\"urn:org:ebics:H004\" xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\""
+                + " Version=\"H004\" Revision=\"1\">\n"
+                + "  <header authenticate=\"true\">\n"
+                + "    <static><TransactionID>0123456789ABCDEF0123456789ABCDEF</TransactionID>"
+                + "<NumSegments>2</NumSegments></static>\n"
+                + "    <mutable><TransactionPhase>Initialisation</TransactionPhase>"
+                + "<SegmentNumber lastSegment=\"false\">1</SegmentNumber>"
+                + "<ReturnCode>000000</ReturnCode><ReportText>[EBICS_OK] OK</ReportText></mutable>\n"
+                + "  </header>\n"
+                + "  <AuthSignature><ds:SignedInfo>"
+                + "<ds:CanonicalizationMethod Algorithm=\"http://www.w3.org/TR/2001/REC-xml-c14n-20010315\"/>"
+                + "<ds:SignatureMethod Algorithm=\"http://www.w3.org/2001/04/xmldsig-more#rsa-sha256\"/>"
+                + "<ds:Reference URI=\"#xpointer(//*[@authenticate='true'])\">"
+                + "<ds:DigestMethod Algorithm=\"http://www.w3.org/2001/04/xmlenc#sha256\"/>"
+                + "<ds:DigestValue>AAAA</ds:DigestValue></ds:Reference>"
+                + "</ds:SignedInfo><ds:SignatureValue>AAAA</ds:SignatureValue></AuthSignature>\n"
+                + "  <body>\n"
+                + "    <DataTransfer>\n"
+                + "      <DataEncryptionInfo authenticate=\"true\">"
+                + "<EncryptionPubKeyDigest Version=\"E002\" Algorithm=\"http://www.w3.org/2001/04/xmlenc#sha256\">"
+                + "AAAA</EncryptionPubKeyDigest>"
+                + "<TransactionKey>" + Base64.getEncoder().encodeToString(transactionKey) + "</TransactionKey>"
+                + "</DataEncryptionInfo>\n"
+                + "      <OrderData>" + orderData + "</OrderData>\n"
+                + "    </DataTransfer>\n"
+                + "    <ReturnCode authenticate=\"true\">000000</ReturnCode>\n"
+                + "  </body>\n"
+                + "</ebicsResponse>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
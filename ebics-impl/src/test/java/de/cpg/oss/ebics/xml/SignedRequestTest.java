@@ -0,0 +1,56 @@
+package de.cpg.oss.ebics.xml;
+
+import de.cpg.oss.ebics.TestUtil;
+import de.cpg.oss.ebics.api.EbicsSession;
+import de.cpg.oss.ebics.api.OrderType;
+import de.cpg.oss.ebics.utils.IOUtil;
+import de.cpg.oss.ebics.utils.XmlUtil;
+import org.ebics.h004.EbicsRequest;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.crypto.dsig.XMLSignature;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SignedRequestTest {
+
+    @BeforeClass
+    public static void initXmlSecurity() {
+        org.apache.xml.security.Init.init();
+    }
+
+    @Test
+    public void testSignatureMatchesSerializedRequest() throws Exception {
+        final EbicsSession session = TestUtil.createEbicsSession();
+        final SignedRequest<EbicsRequest> signedRequest = EbicsRequestElement.createSigned(session, OrderType.HPD);
+
+        final byte[] xml = XmlUtil.validate(signedRequest.toByteArray());
+        final Document parsed = parse(xml);
+
+        final byte[] digestValue = signatureElementValue(parsed, "DigestValue");
+        final byte[] signatureValue = signatureElementValue(parsed, "SignatureValue");
+
+        assertThat(XmlUtil.digest(parsed)).isEqualTo(digestValue);
+        assertThat(XmlUtil.sign(parsed, session.getUser())).isEqualTo(signatureValue);
+
+        assertThat(signedRequest.getRequest().getAuthSignature().getSignedInfo().getReferences().get(0)
+                .getDigestValue()).isEqualTo(digestValue);
+        assertThat(signedRequest.getRequest().getAuthSignature().getSignatureValue().getValue())
+                .isEqualTo(signatureValue);
+    }
+
+    private static Document parse(final byte[] xml) throws Exception {
+        final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        return documentBuilderFactory.newDocumentBuilder().parse(IOUtil.wrap(xml));
+    }
+
+    private static byte[] signatureElementValue(final Document document, final String localName) {
+        return DatatypeConverter.parseBase64Binary(
+                document.getElementsByTagNameNS(XMLSignature.XMLNS, localName).item(0).getTextContent());
+    }
+}
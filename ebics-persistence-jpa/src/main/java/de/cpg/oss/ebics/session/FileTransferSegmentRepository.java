@@ -0,0 +1,12 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.api.FileTransferSegment;
+
+public interface FileTransferSegmentRepository extends EbicsRepository<FileTransferSegment>,
+        FileTransferSegmentRepositoryCustom {
+
+    @Override
+    default Class<FileTransferSegment> getEntityType() {
+        return FileTransferSegment.class;
+    }
+}
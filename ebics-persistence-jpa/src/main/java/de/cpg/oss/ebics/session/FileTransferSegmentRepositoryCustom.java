@@ -0,0 +1,16 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.api.FileTransferSegment;
+import de.cpg.oss.ebics.api.PersistenceProvider;
+
+import java.io.IOException;
+
+public interface FileTransferSegmentRepositoryCustom {
+
+    /**
+     * Inserts new segments while they are produced, without looking them up first. They are flushed to the database
+     * and detached every {@code hibernate.jdbc.batch_size} segments, so that many inserts are sent in one JDBC batch
+     * and no more segments are held in memory.
+     */
+    void insertAll(PersistenceProvider.Producer<FileTransferSegment> producer) throws IOException;
+}
@@ -0,0 +1,44 @@
+package de.cpg.oss.ebics.session;
+
+import de.cpg.oss.ebics.api.FileTransferSegment;
+import de.cpg.oss.ebics.api.PersistenceProvider;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.util.Optional;
+
+class FileTransferSegmentRepositoryImpl implements FileTransferSegmentRepositoryCustom {
+
+    private static final String BATCH_SIZE_PROPERTY = "hibernate.jdbc.batch_size";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertAll(final PersistenceProvider.Producer<FileTransferSegment> producer) throws IOException {
+        final int batchSize = batchSize();
+        final int[] unflushed = {0};
+        producer.produce(segment -> {
+            entityManager.persist(segment);
+            if (++unflushed[0] == batchSize) {
+                flush();
+                unflushed[0] = 0;
+            }
+        });
+        flush();
+    }
+
+    private void flush() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private int batchSize() {
+        return Optional.ofNullable(entityManager.getEntityManagerFactory().getProperties().get(BATCH_SIZE_PROPERTY))
+                .map(Object::toString)
+                .map(Integer::valueOf)
+                .filter(batchSize -> batchSize > 0)
+                .orElse(1);
+    }
+}
@@ -1,8 +1,10 @@
 package de.cpg.oss.ebics.session;
 
 import de.cpg.oss.ebics.api.EbicsPartner;
+import de.cpg.oss.ebics.api.FileTransferSegment;
 import de.cpg.oss.ebics.api.Identifiable;
 import de.cpg.oss.ebics.api.PersistenceProvider;
+import de.cpg.oss.ebics.api.UnitOfWork;
 import javaslang.collection.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -23,17 +25,20 @@ public class JpaPersistenceProvider implements PersistenceProvider {
     private final BankAccountRepository bankAccountRepository;
     private final EbicsUserRepository userRepository;
     private final FileTransferRepository fileTransferRepository;
+    private final FileTransferSegmentRepository fileTransferSegmentRepository;
 
     public JpaPersistenceProvider(final EbicsBankRepository bankRepository,
                                   final EbicsPartnerRepository partnerRepository,
                                   final BankAccountRepository bankAccountRepository,
                                   final EbicsUserRepository userRepository,
-                                  final FileTransferRepository fileTransferRepository) {
+                                  final FileTransferRepository fileTransferRepository,
+                                  final FileTransferSegmentRepository fileTransferSegmentRepository) {
         this.bankRepository = bankRepository;
         this.partnerRepository = partnerRepository;
         this.bankAccountRepository = bankAccountRepository;
         this.userRepository = userRepository;
         this.fileTransferRepository = fileTransferRepository;
+        this.fileTransferSegmentRepository = fileTransferSegmentRepository;
     }
 
     @Override
@@ -47,6 +52,30 @@ public class JpaPersistenceProvider implements PersistenceProvider {
         return ((EbicsRepository<T>) findRepositoryFor(clazz)).save(object);
     }
 
+    /**
+     * Saves all produced objects in a single transaction, which is rolled back if the producer fails. Segments of an
+     * upload are always new, so they are inserted without being merged, which lets Hibernate send them in JDBC
+     * batches.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    @SuppressWarnings("unchecked")
+    public <T extends Identifiable> void saveAll(final Class<T> clazz, final Producer<T> producer) throws IOException {
+        if (FileTransferSegment.class.equals(clazz)) {
+            fileTransferSegmentRepository.insertAll((Producer<FileTransferSegment>) producer);
+        } else {
+            producer.produce(object -> save(clazz, object));
+        }
+    }
+
+    /**
+     * Saves the whole unit of work in a single transaction.
+     */
+    @Override
+    public void saveAll(final UnitOfWork unitOfWork) throws IOException {
+        unitOfWork.saveEach(this);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <T extends Identifiable> T load(final Class<T> clazz, final String id) throws IOException {
@@ -64,13 +93,18 @@ public class JpaPersistenceProvider implements PersistenceProvider {
 
     @Override
     public <T extends Identifiable> boolean delete(final Class<T> clazz, final String id) throws IOException {
-        findRepositoryFor(clazz).delete(id);
+        final EbicsRepository<? extends Identifiable> repository = findRepositoryFor(clazz);
+        if (!repository.exists(id)) {
+            return false;
+        }
+        repository.delete(id);
         return true;
     }
 
     private <T extends Identifiable> EbicsRepository<? extends Identifiable> findRepositoryFor(final Class<T> clazz) {
         final EbicsRepository<? extends Identifiable> repository = Stream
-                .of(bankRepository, partnerRepository, userRepository, fileTransferRepository)
+                .of(bankRepository, partnerRepository, userRepository, fileTransferRepository,
+                        fileTransferSegmentRepository)
                 .find(r -> r.getEntityType().isAssignableFrom(clazz))
                 .getOrElseThrow(() -> new IllegalArgumentException("Unknown object type " + clazz.getName()));
         log.trace("Found {}:{} for {}",
@@ -1,5 +1,7 @@
 package de.cpg.oss.ebics.session;
 
+import de.cpg.oss.ebics.api.FileTransfer;
+import de.cpg.oss.ebics.api.FileTransferSegment;
 import de.cpg.oss.ebics.api.PersistenceProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.BeforeClass;
@@ -9,6 +11,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.AbstractTransactionalJUnit4SpringContextTests;
 
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
 @Slf4j
 @SpringBootTest
 public class JpaPersistenceProviderTest extends AbstractTransactionalJUnit4SpringContextTests implements PersistenceProviderTest {
@@ -49,6 +57,38 @@ public class JpaPersistenceProviderTest extends AbstractTransactionalJUnit4Sprin
         persistenceProviderTest().testFileTransferPersistence();
     }
 
+    @Test
+    @Override
+    public void testFileTransferWithDerivedSegmentIdsPersistence() throws Exception {
+        persistenceProviderTest().testFileTransferWithDerivedSegmentIdsPersistence();
+    }
+
+    @Test
+    @Override
+    public void testFileTransferSegmentPersistence() throws Exception {
+        persistenceProviderTest().testFileTransferSegmentPersistence();
+    }
+
+    @Test
+    public void testFailedSegmentUploadIsRolledBack() throws Exception {
+        final UUID transferId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> persistenceProvider.saveAll(FileTransferSegment.class, sink -> {
+            for (int segmentNumber = 1; segmentNumber <= 20; segmentNumber++) {
+                sink.save(FileTransferSegment.valueOf(
+                        FileTransfer.segmentId(transferId, segmentNumber), new byte[]{(byte) segmentNumber}));
+            }
+            throw new IOException("Connection reset");
+        })).isInstanceOf(IOException.class);
+
+        for (int segmentNumber = 1; segmentNumber <= 20; segmentNumber++) {
+            final String segmentId = FileTransfer.segmentId(transferId, segmentNumber).toString();
+            assertThatThrownBy(() -> persistenceProvider.load(FileTransferSegment.class, segmentId))
+                    .isInstanceOf(IOException.class);
+            assertThat(persistenceProvider.delete(FileTransferSegment.class, segmentId)).isFalse();
+        }
+    }
+
     private PersistenceProviderTest persistenceProviderTest() {
         return new AbstractPersistenceProviderTest() {
             @Override
@@ -0,0 +1,43 @@
+package de.cpg.oss.ebics.session;
+
+/**
+ * Decides how far {@link JsonPersistenceProvider} forces written files to the storage device.
+ * <p>
+ * <p>Files are always written to a temporary file which then atomically replaces the target, so a crash never
+ * leaves a partially written file behind. Whether the new content survives a crash of the operating system or a
+ * power loss however depends on the data being on the device before and after the rename.
+ */
+public enum FsyncPolicy {
+
+    /**
+     * Nothing is forced, writing back is left to the operating system. After a power loss a file may be empty or
+     * lose its latest content.
+     */
+    NONE(false, false),
+    /**
+     * The temporary file is forced before it replaces the target, so the target holds either its old or its new
+     * content. The replacement itself may still be lost.
+     */
+    FILE(true, false),
+    /**
+     * The temporary file is forced before and the directory after replacing the target, so the new content is
+     * durable once saving returns. When saving several objects at once, the directory is forced only once.
+     */
+    FILE_AND_DIRECTORY(true, true);
+
+    private final boolean syncFile;
+    private final boolean syncDirectory;
+
+    FsyncPolicy(final boolean syncFile, final boolean syncDirectory) {
+        this.syncFile = syncFile;
+        this.syncDirectory = syncDirectory;
+    }
+
+    boolean isSyncFile() {
+        return syncFile;
+    }
+
+    boolean isSyncDirectory() {
+        return syncDirectory;
+    }
+}
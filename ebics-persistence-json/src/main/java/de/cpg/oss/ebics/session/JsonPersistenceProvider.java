@@ -2,6 +2,7 @@ package de.cpg.oss.ebics.session;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
@@ -9,39 +10,85 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import de.cpg.oss.ebics.api.*;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 
+/**
+ * Stores every object as a compact JSON file in a storage directory.
+ * <p>
+ * <p>A file is never overwritten in place. The object is written to a temporary file in the same directory, which
+ * then atomically replaces the target, so a crash while saving leaves either the old or the new file. How far
+ * files are forced to the storage device is set by the {@link FsyncPolicy}. Temporary files left behind by a
+ * crashed process are deleted when the provider is created, so a storage directory must not be shared by several
+ * providers at the same time.
+ */
 @Slf4j
 public class JsonPersistenceProvider implements PersistenceProvider {
 
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
     private final ObjectMapper objectMapper;
     private final File storageDirectory;
+    private final FsyncPolicy fsyncPolicy;
 
     public JsonPersistenceProvider(final File storageDirectory) {
+        this(storageDirectory, FsyncPolicy.FILE);
+    }
+
+    public JsonPersistenceProvider(final File storageDirectory, final FsyncPolicy fsyncPolicy) {
         this.objectMapper = objectMapper();
         this.storageDirectory = storageDirectory;
+        this.fsyncPolicy = fsyncPolicy;
         if (!this.storageDirectory.mkdirs()) {
             log.warn("Could not create all (sub) directories for storage directory {}", this.storageDirectory);
         }
+        deleteStaleTempFiles();
     }
 
     @Override
     public <T extends Identifiable> T save(final Class<T> clazz, final T object) throws IOException {
-        final File file = new File(storageDirectory, filenameFrom(clazz, object.getId()));
-        log.debug("Serialize {} into {}", object.getId(), file.getAbsolutePath());
-        objectMapper.writer().writeValue(file, object);
+        write(filenameFrom(clazz, object.getId()), object);
+        if (fsyncPolicy.isSyncDirectory()) {
+            syncStorageDirectory();
+        }
         return object;
     }
 
+    /**
+     * Writes all objects, forcing the storage directory only once if the fsync policy asks for it.
+     */
+    @Override
+    public void saveAll(final UnitOfWork unitOfWork) throws IOException {
+        try {
+            unitOfWork.forEach((clazz, object) -> {
+                try {
+                    write(filenameFrom(clazz, object.getId()), object);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (fsyncPolicy.isSyncDirectory() && !unitOfWork.isEmpty()) {
+            syncStorageDirectory();
+        }
+    }
+
     @Override
     public <T extends Identifiable> T load(final Class<T> clazz, final String id) throws IOException {
         final File file = new File(storageDirectory, filenameFrom(clazz, id));
         log.debug("Deserialize {} from {}", id, file.getAbsolutePath());
-        return objectMapper.readerFor(clazz).readValue(new FileInputStream(file));
+        try (final InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+            return objectMapper.readerFor(clazz).readValue(input);
+        }
     }
 
     @Override
@@ -54,6 +101,59 @@ public class JsonPersistenceProvider implements PersistenceProvider {
         return new File(storageDirectory, filenameFrom(clazz, id)).delete();
     }
 
+    private void write(final String filename, final Object object) throws IOException {
+        final Path target = new File(storageDirectory, filename).toPath();
+        final Path temp = Files.createTempFile(storageDirectory.toPath(), filename, TEMP_FILE_SUFFIX);
+        log.debug("Serialize {} into {}", filename, target.toAbsolutePath());
+        try {
+            try (final FileOutputStream file = new FileOutputStream(temp.toFile());
+                 final OutputStream output = new BufferedOutputStream(file)) {
+                objectMapper.writeValue(output, object);
+                output.flush();
+                if (fsyncPolicy.isSyncFile()) {
+                    file.getFD().sync();
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+                log.debug("Atomic move not supported, replacing {} non-atomically", target);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Removes temporary files left behind by a process that died between writing and moving a file.
+     */
+    private void deleteStaleTempFiles() {
+        final File[] staleFiles = storageDirectory.listFiles(JsonPersistenceProvider::isTempFile);
+        if (staleFiles == null) {
+            return;
+        }
+        for (final File staleFile : staleFiles) {
+            log.info("Deleting stale temporary file {}", staleFile);
+            if (!staleFile.delete()) {
+                log.warn("Could not delete stale temporary file {}", staleFile);
+            }
+        }
+    }
+
+    private static boolean isTempFile(final File directory, final String name) {
+        return name.contains(".json") && name.endsWith(TEMP_FILE_SUFFIX);
+    }
+
+    private void syncStorageDirectory() {
+        try (final FileChannel directory = FileChannel.open(storageDirectory.toPath(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (final IOException e) {
+            // Not every platform allows to open or force a directory, e.g. Windows
+            log.debug("Could not force storage directory {}", storageDirectory, e);
+        }
+    }
+
     private static <T extends Identifiable> String filenameFrom(final Class<T> clazz, final String id) {
         return clazz.getSimpleName().concat("_").concat(id).concat(".json");
     }
@@ -82,7 +182,8 @@ public class JsonPersistenceProvider implements PersistenceProvider {
         final ObjectMapper objectMapper = new ObjectMapper();
         return objectMapper
                 .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false)
-                .configure(SerializationFeature.INDENT_OUTPUT, true)
+                .configure(SerializationFeature.INDENT_OUTPUT, false)
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
                 .setSerializationInclusion(JsonInclude.Include.NON_NULL)
                 .setVisibility(objectMapper.getVisibilityChecker()
                         .withFieldVisibility(JsonAutoDetect.Visibility.ANY)
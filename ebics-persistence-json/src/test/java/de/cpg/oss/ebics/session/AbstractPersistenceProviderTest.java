@@ -9,7 +9,10 @@ import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.MessageDigest;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -132,4 +135,46 @@ public abstract class AbstractPersistenceProviderTest implements PersistenceProv
         assertThat(saved).isNotSameAs(fileTransfer);
         assertThat(saved).isEqualTo(fileTransfer);
     }
+
+    @Test
+    @Override
+    public void testFileTransferWithDerivedSegmentIdsPersistence() throws Exception {
+        final FileTransfer fileTransfer = FileTransfer.builder()
+                .digest(DIGEST)
+                .nonce(DIGEST)
+                .numSegments(3)
+                .orderType(OrderType.AIA)
+                .segmentNumber(2)
+                .transactionId(DIGEST)
+                .transferId(UUID.randomUUID())
+                .build();
+
+        log.info("Saved {}", persistenceProvider().save(FileTransfer.class, fileTransfer));
+        final FileTransfer saved = persistenceProvider().load(FileTransfer.class, fileTransfer.getId());
+        assertThat(saved).isNotSameAs(fileTransfer);
+        assertThat(saved).isEqualTo(fileTransfer);
+        assertThat(saved.getSegmentIds()).isEqualTo(fileTransfer.getSegmentIds());
+    }
+
+    @Test
+    @Override
+    public void testFileTransferSegmentPersistence() throws Exception {
+        final UUID transferId = UUID.randomUUID();
+        final byte[] content = new byte[1024 * 1024];
+        new Random(42).nextBytes(content);
+        final List<FileTransferSegment> segments = Arrays.asList(
+                FileTransferSegment.valueOf(FileTransfer.segmentId(transferId, 1), content),
+                FileTransferSegment.valueOf(FileTransfer.segmentId(transferId, 2), DIGEST));
+
+        persistenceProvider().saveAll(FileTransferSegment.class, sink -> {
+            for (final FileTransferSegment segment : segments) {
+                sink.save(segment);
+            }
+        });
+        for (final FileTransferSegment segment : segments) {
+            final FileTransferSegment saved = persistenceProvider().load(FileTransferSegment.class, segment.getId());
+            assertThat(saved).isNotSameAs(segment);
+            assertThat(saved).isEqualTo(segment);
+        }
+    }
 }
@@ -1,10 +1,19 @@
 package de.cpg.oss.ebics.session;
 
+import de.cpg.oss.ebics.api.EbicsPartner;
+import de.cpg.oss.ebics.api.EbicsUser;
 import de.cpg.oss.ebics.api.PersistenceProvider;
+import de.cpg.oss.ebics.api.UnitOfWork;
+import de.cpg.oss.ebics.api.UserStatus;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Before;
+import org.junit.Test;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @Slf4j
 public class JsonPersistenceProviderTest extends AbstractPersistenceProviderTest {
@@ -22,4 +31,46 @@ public class JsonPersistenceProviderTest extends AbstractPersistenceProviderTest
     PersistenceProvider persistenceProvider() {
         return persistenceProvider;
     }
+
+    @Test
+    public void testReplacesFilesAtomically() throws Exception {
+        final File directory = new File(TEST_DATA_DIR, "atomic");
+        final PersistenceProvider provider = new JsonPersistenceProvider(directory, FsyncPolicy.FILE_AND_DIRECTORY);
+        final EbicsUser user = EbicsUser.builder().userId("ATOMIC").status(UserStatus.NEW).build();
+
+        provider.save(EbicsUser.class, user);
+        provider.saveAll(new UnitOfWork()
+                .save(EbicsUser.class, user.withStatus(UserStatus.INITIALIZED))
+                .save(EbicsPartner.class, EbicsPartner.builder().partnerId("ATOMIC").build()));
+
+        assertThat(provider.load(EbicsUser.class, "ATOMIC").getStatus()).isEqualTo(UserStatus.INITIALIZED);
+        assertThat(provider.load(EbicsPartner.class, "ATOMIC").getPartnerId()).isEqualTo("ATOMIC");
+        assertThat(directory.list((dir, name) -> name.endsWith(".tmp"))).isEmpty();
+    }
+
+    @Test
+    public void testDeletesStaleTempFiles() throws Exception {
+        final File directory = new File(TEST_DATA_DIR, "stale");
+        final PersistenceProvider provider = new JsonPersistenceProvider(directory);
+        provider.save(EbicsUser.class, EbicsUser.builder().userId("STALE").status(UserStatus.NEW).build());
+        final File staleFile = Files.createTempFile(directory.toPath(), "EbicsUser_STALE.json", ".tmp").toFile();
+        final File otherFile = new File(directory, "other.tmp");
+        assertThat(otherFile.createNewFile() || otherFile.exists()).isTrue();
+
+        new JsonPersistenceProvider(directory);
+
+        assertThat(staleFile).doesNotExist();
+        assertThat(otherFile).exists();
+        assertThat(new File(directory, "EbicsUser_STALE.json")).exists();
+    }
+
+    @Test
+    public void testWritesCompactJson() throws Exception {
+        final EbicsUser user = EbicsUser.builder().userId("COMPACT").status(UserStatus.NEW).build();
+        persistenceProvider.save(EbicsUser.class, user);
+
+        final String json = new String(Files.readAllBytes(new File(TEST_DATA_DIR, "EbicsUser_COMPACT.json").toPath()),
+                StandardCharsets.UTF_8);
+        assertThat(json).doesNotContain("\n").doesNotContain("  ");
+    }
 }
@@ -9,4 +9,8 @@ public interface PersistenceProviderTest {
     void testEbicsUserPersistence() throws Exception;
 
     void testFileTransferPersistence() throws Exception;
+
+    void testFileTransferWithDerivedSegmentIdsPersistence() throws Exception;
+
+    void testFileTransferSegmentPersistence() throws Exception;
 }